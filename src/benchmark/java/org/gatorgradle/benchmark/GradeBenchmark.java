@@ -0,0 +1,196 @@
+package org.gatorgradle.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+
+/**
+ * GradeBenchmark runs the real grade task through Gradle TestKit against a stub
+ * GatorGrader, for a range of check counts and worker counts, and writes what
+ * it measured as JSON so runs of different versions can be compared.
+ *
+ * <p>The stub answers each check after a short sleep, so the numbers reflect
+ * how GatorGradle schedules, runs, and collects checks rather than GatorGrader.
+ * Nothing is downloaded: the stub is used as is and run with the Python given
+ * as benchmark.python, and the build runs with --offline.
+ *
+ * <p>Configured with the system properties benchmark.checks, benchmark.workers,
+ * benchmark.iterations, benchmark.sleep, and benchmark.python.
+ */
+public class GradeBenchmark {
+  private static final String PEAK_HEAP = "gatorgradle.benchmark.peakHeap=";
+  private static final Pattern PEAK_HEAP_PATTERN = Pattern.compile(PEAK_HEAP + "(\\d+)");
+
+  // reports the daemon's peak heap use during the build, which TestKit cannot see
+  private static final String BUILD_SCRIPT = String.join("\n",
+      "import java.lang.management.ManagementFactory",
+      "import java.lang.management.MemoryType",
+      "",
+      "plugins {",
+      "    id 'org.gatored.gatorgradle'",
+      "}",
+      "",
+      "def heap = ManagementFactory.memoryPoolMXBeans.findAll { it.type == MemoryType.HEAP }",
+      "heap*.resetPeakUsage()",
+      "gradle.buildFinished {",
+      "    println '" + PEAK_HEAP + "' + heap.sum { it.peakUsage.used }",
+      "}",
+      "");
+
+  private final Path workDir;
+  private final Path grader;
+  private final Map<String, String> environment;
+  private final int iterations;
+
+  /**
+   * Set up a stub GatorGrader in the given directory.
+   *
+   * @param  workDir    the directory to create projects and the stub in
+   * @param  python     the Python to run the stub with
+   * @param  sleep      how many milliseconds each check takes
+   * @param  iterations how many measured builds to run for each configuration
+   * @throws IOException if the stub could not be written
+   */
+  public GradeBenchmark(Path workDir, String python, int sleep, int iterations)
+      throws IOException {
+    this.workDir = workDir;
+    this.grader = Files.createDirectories(workDir.resolve("gatorgrader"));
+    this.iterations = iterations;
+    try (InputStream stub = GradeBenchmark.class.getResourceAsStream("gatorgrader.py")) {
+      Files.copy(stub, grader.resolve("gatorgrader.py"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    environment = new HashMap<>(System.getenv());
+    environment.put("GATORGRADER_HOME", grader.toString());
+    environment.put("GATORGRADER_PYTHON", python);
+    environment.put("GATORGRADLE_HOME", workDir.resolve("gatorgradle").toString());
+    environment.put("GATORGRADER_STUB_SLEEP", Integer.toString(sleep));
+  }
+
+  /**
+   * Grade a project with the given number of checks, running the given number
+   * of them at a time.
+   *
+   * @param  checks  how many checks the project has
+   * @param  workers how many checks may run at once
+   * @return         the measurement, as a JSON object
+   * @throws IOException if the project could not be written
+   */
+  public String measure(int checks, int workers) throws IOException {
+    Path project = createProject(checks);
+    GradleRunner runner = GradleRunner.create()
+        .withProjectDir(project.toFile())
+        .withPluginClasspath()
+        .withEnvironment(environment)
+        .withArguments("grade", "--offline", "--rerun-tasks",
+            "-Pgatorgradle.parallelism=" + workers);
+
+    // the first build pays for starting the daemon and loading the plugin
+    runner.build();
+
+    List<Long> wallTimes = new ArrayList<>();
+    long peakHeap = 0;
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      BuildResult result = runner.build();
+      wallTimes.add((System.nanoTime() - start) / 1_000_000);
+      Matcher heap = PEAK_HEAP_PATTERN.matcher(result.getOutput());
+      if (heap.find()) {
+        peakHeap = Math.max(peakHeap, Long.parseLong(heap.group(1)));
+      }
+    }
+
+    List<Long> sorted = new ArrayList<>(wallTimes);
+    Collections.sort(sorted);
+    long median = sorted.get(sorted.size() / 2);
+    double throughput = median == 0 ? 0 : checks * 1000.0 / median;
+    String measurement = String.format(Locale.ROOT,
+        "{\"checks\": %d, \"workers\": %d, \"wallMillis\": %d, \"checksPerSecond\": %.2f,"
+        + " \"peakHeapBytes\": %d, \"runs\": %s}",
+        checks, workers, median, throughput, peakHeap, wallTimes);
+    System.out.println(measurement);
+    return measurement;
+  }
+
+  private Path createProject(int checks) throws IOException {
+    Path project = Files.createDirectories(workDir.resolve("project-" + checks));
+    Files.write(project.resolve("settings.gradle"),
+        "rootProject.name = 'benchmark'\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(project.resolve("build.gradle"), BUILD_SCRIPT.getBytes(StandardCharsets.UTF_8));
+    Files.write(project.resolve("README.md"),
+        "# Benchmark\n".getBytes(StandardCharsets.UTF_8));
+
+    StringBuilder config = new StringBuilder();
+    config.append("name: benchmark\n")
+        .append("break: false\n")
+        .append("cache: false\n")
+        .append("---\n");
+    for (int i = 0; i < checks; i++) {
+      config.append("--description \"Benchmark check ").append(i)
+          .append("\" ConfirmFileExists --file README.md\n");
+    }
+    Files.createDirectories(project.resolve("config"));
+    Files.write(project.resolve("config").resolve("gatorgrader.yml"),
+        config.toString().getBytes(StandardCharsets.UTF_8));
+    return project;
+  }
+
+  private static List<Integer> integers(String property, String defaults) {
+    return Arrays.stream(System.getProperty(property, defaults).split(","))
+        .map(String::trim)
+        .map(Integer::valueOf)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Run every configuration and write the measurements to the file given as
+   * the only argument.
+   *
+   * @param  args the file to write the results to
+   * @throws IOException if the results could not be written
+   */
+  public static void main(String[] args) throws IOException {
+    Path results = Paths.get(args.length > 0 ? args[0] : "benchmark.json").toAbsolutePath();
+    List<Integer> checks = integers("benchmark.checks", "10,100,1000,5000");
+    List<Integer> workers = integers("benchmark.workers",
+        "1,4," + Runtime.getRuntime().availableProcessors());
+    GradeBenchmark benchmark = new GradeBenchmark(
+        Files.createTempDirectory("gatorgradle-benchmark"),
+        System.getProperty("benchmark.python", "python3"),
+        Integer.getInteger("benchmark.sleep", 10),
+        Integer.getInteger("benchmark.iterations", 3));
+
+    List<String> measurements = new ArrayList<>();
+    for (int count : checks) {
+      for (int worker : workers.stream().distinct().collect(Collectors.toList())) {
+        measurements.add(benchmark.measure(count, worker));
+      }
+    }
+
+    Files.createDirectories(results.getParent());
+    Files.write(results, String.format(Locale.ROOT,
+        "{\"timestamp\": %d, \"java\": \"%s\", \"processors\": %d, \"sleepMillis\": %d,"
+        + " \"results\": [\n  %s\n]}\n",
+        System.currentTimeMillis(), System.getProperty("java.version"),
+        Runtime.getRuntime().availableProcessors(), Integer.getInteger("benchmark.sleep", 10),
+        String.join(",\n  ", measurements)).getBytes(StandardCharsets.UTF_8));
+    System.out.println("Wrote " + results);
+  }
+}
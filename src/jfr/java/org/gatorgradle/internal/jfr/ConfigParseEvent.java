@@ -0,0 +1,37 @@
+package org.gatorgradle.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.gatorgradle.internal.FlightEvents;
+
+@Name("org.gatorgradle.ConfigParse")
+@Label("Config Parse")
+@Category({"GatorGradle", "Config"})
+@Description("Parsing a GatorGradle config file")
+class ConfigParseEvent extends Event implements FlightEvents.Scope {
+  @Label("Path")
+  String path;
+
+  @Label("Lines")
+  int lines;
+
+  ConfigParseEvent(String path) {
+    this.path = path;
+    begin();
+  }
+
+  @Override
+  public FlightEvents.Scope withCount(int count) {
+    lines = count;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    commit();
+  }
+}
@@ -0,0 +1,37 @@
+package org.gatorgradle.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.gatorgradle.internal.FlightEvents;
+
+@Name("org.gatorgradle.Dependency")
+@Label("Dependency")
+@Category({"GatorGradle", "Dependencies"})
+@Description("Checking, installing, or updating a dependency of GatorGrader")
+class DependencyEvent extends Event implements FlightEvents.Scope {
+  @Label("Dependency")
+  String dependency;
+
+  @Label("Success")
+  boolean success;
+
+  DependencyEvent(String dependency) {
+    this.dependency = dependency;
+    begin();
+  }
+
+  @Override
+  public FlightEvents.Scope withOutcome(boolean outcome) {
+    success = outcome;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    commit();
+  }
+}
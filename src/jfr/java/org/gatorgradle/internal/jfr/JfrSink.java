@@ -0,0 +1,39 @@
+package org.gatorgradle.internal.jfr;
+
+import org.gatorgradle.internal.FlightEvents;
+
+/**
+ * Creates Flight Recorder events for {@link FlightEvents}. Only loaded, by
+ * name, on JVMs that have the jdk.jfr module.
+ */
+public class JfrSink implements FlightEvents.Sink {
+  @Override
+  public FlightEvents.Scope configParse(String path) {
+    return new ConfigParseEvent(path);
+  }
+
+  @Override
+  public FlightEvents.Scope dependency(String dependency) {
+    return new DependencyEvent(dependency);
+  }
+
+  @Override
+  public FlightEvents.Scope processSpawn(Object command) {
+    return new ProcessSpawnEvent(command);
+  }
+
+  @Override
+  public FlightEvents.Scope processRun(Object command) {
+    return new ProcessRunEvent(command);
+  }
+
+  @Override
+  public FlightEvents.Scope resultParse(Object command) {
+    return new ResultParseEvent(command);
+  }
+
+  @Override
+  public FlightEvents.Scope summaryRender(String assignment) {
+    return new SummaryRenderEvent(assignment);
+  }
+}
@@ -0,0 +1,49 @@
+package org.gatorgradle.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.gatorgradle.internal.FlightEvents;
+
+@Name("org.gatorgradle.ProcessRun")
+@Label("Process Run")
+@Category({"GatorGradle", "Checks"})
+@Description("Running a check or command until it exits")
+class ProcessRunEvent extends Event implements FlightEvents.Scope {
+  @Label("Command")
+  String command;
+
+  @Label("Exit Value")
+  int exitValue;
+
+  @Label("Output Size")
+  @Description("Characters of output kept from the command")
+  long outputSize;
+
+  ProcessRunEvent(Object command) {
+    if (isEnabled()) {
+      this.command = String.valueOf(command);
+    }
+    begin();
+  }
+
+  @Override
+  public FlightEvents.Scope withExitValue(int exitValue) {
+    this.exitValue = exitValue;
+    return this;
+  }
+
+  @Override
+  public FlightEvents.Scope withOutputSize(long chars) {
+    outputSize = chars;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    commit();
+  }
+}
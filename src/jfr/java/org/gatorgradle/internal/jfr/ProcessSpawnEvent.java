@@ -0,0 +1,30 @@
+package org.gatorgradle.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.gatorgradle.internal.FlightEvents;
+
+@Name("org.gatorgradle.ProcessSpawn")
+@Label("Process Spawn")
+@Category({"GatorGradle", "Checks"})
+@Description("Starting the process of a check or command")
+class ProcessSpawnEvent extends Event implements FlightEvents.Scope {
+  @Label("Command")
+  String command;
+
+  ProcessSpawnEvent(Object command) {
+    if (isEnabled()) {
+      this.command = String.valueOf(command);
+    }
+    begin();
+  }
+
+  @Override
+  public void close() {
+    commit();
+  }
+}
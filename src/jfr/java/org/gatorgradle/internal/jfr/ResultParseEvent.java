@@ -0,0 +1,49 @@
+package org.gatorgradle.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.gatorgradle.internal.FlightEvents;
+
+@Name("org.gatorgradle.ResultParse")
+@Label("Result Parse")
+@Category({"GatorGradle", "Results"})
+@Description("Turning the output of a check into a check result")
+class ResultParseEvent extends Event implements FlightEvents.Scope {
+  @Label("Command")
+  String command;
+
+  @Label("Output Size")
+  @Description("Characters of output parsed")
+  long outputSize;
+
+  @Label("Outcome")
+  boolean outcome;
+
+  ResultParseEvent(Object command) {
+    if (isEnabled()) {
+      this.command = String.valueOf(command);
+    }
+    begin();
+  }
+
+  @Override
+  public FlightEvents.Scope withOutputSize(long chars) {
+    outputSize = chars;
+    return this;
+  }
+
+  @Override
+  public FlightEvents.Scope withOutcome(boolean outcome) {
+    this.outcome = outcome;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    commit();
+  }
+}
@@ -0,0 +1,37 @@
+package org.gatorgradle.internal.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.gatorgradle.internal.FlightEvents;
+
+@Name("org.gatorgradle.SummaryRender")
+@Label("Summary Render")
+@Category({"GatorGradle", "Results"})
+@Description("Showing the summary of a grading run")
+class SummaryRenderEvent extends Event implements FlightEvents.Scope {
+  @Label("Assignment")
+  String assignment;
+
+  @Label("Results")
+  int results;
+
+  SummaryRenderEvent(String assignment) {
+    this.assignment = assignment;
+    begin();
+  }
+
+  @Override
+  public FlightEvents.Scope withCount(int count) {
+    results = count;
+    return this;
+  }
+
+  @Override
+  public void close() {
+    commit();
+  }
+}
@@ -0,0 +1,74 @@
+package org.gatorgradle.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures how long it takes to read a config file with the given number of
+ * checks, spread over a few files like a typical assignment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigMapBenchmark {
+  @Param({"10", "100", "1000", "10000"})
+  public int checks;
+
+  private Path config;
+
+  /**
+   * Write a config file with a header and the requested number of checks.
+   *
+   * @throws IOException if the file could not be written
+   */
+  @Setup(Level.Trial)
+  public void writeConfig() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    builder.append("name: benchmark\n")
+        .append("break: true\n")
+        .append("fastfail: false\n")
+        .append("indent: 4\n")
+        .append("---\n")
+        .append("mvn clean test\n");
+    for (int i = 0; i < checks; i++) {
+      if (i % 25 == 0) {
+        builder.append("src/main/java/File").append(i / 25).append(".java:\n");
+      }
+      builder.append("    --description \"Check number ").append(i)
+          .append("\" ConfirmFileExists --exact\n");
+    }
+    config = Files.createTempFile("gatorgradle-bench", ".yml");
+    Files.write(config, builder.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteConfig() throws IOException {
+    Files.deleteIfExists(config);
+  }
+
+  /**
+   * Parse the config file.
+   *
+   * @return the parsed config, so the work is not optimized away
+   */
+  @Benchmark
+  public ConfigMap parse() {
+    ConfigMap map = new ConfigMap(config);
+    map.parse();
+    return map;
+  }
+}
@@ -0,0 +1,34 @@
+package org.gatorgradle.config;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures splitting a check into the arguments of its command, which
+ * happens once for every check in a config.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenizeBenchmark {
+  @Param({
+      "mvn clean test",
+      "--description \"Make sure the file exists\" ConfirmFileExists --exact",
+      "(timeout 300) (pure) --description \"Count the commits in the repository\""
+          + " CountCommits --count 18 --exact --directory \"src/main/java\"",
+  })
+  public String line;
+
+  @Benchmark
+  public List<String> tokenize() {
+    return GatorGradleConfig.tokenize(line);
+  }
+}
@@ -0,0 +1,78 @@
+package org.gatorgradle.display;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.gatorgradle.display.CheckResult.MalformedJsonException;
+import org.gatorgradle.util.Json;
+import org.gatorgradle.util.StringUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures reading the JSON GatorGrader prints and rendering the result,
+ * with diagnostics from a single line up to the size of a long build log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheckResultBenchmark {
+  @Param({"80", "65536", "4194304"})
+  public int diagnosticLength;
+
+  private String json;
+  private String batch;
+  private CheckResult result;
+
+  /**
+   * Build the output of a failing check and a batch of ten of them.
+   *
+   * @throws MalformedJsonException if the output could not be parsed
+   */
+  @Setup
+  public void buildOutput() throws MalformedJsonException {
+    StringBuilder diagnostic = new StringBuilder(diagnosticLength);
+    String line = "[ERROR] Tests run: 12, Failures: 1, \"Errors\": 0\t"
+        + StringUtil.repeat('=', 20);
+    while (diagnostic.length() < diagnosticLength) {
+      diagnostic.append(line).append('\n');
+    }
+    diagnostic.setLength(diagnosticLength);
+    json = "{\"check\": \"Make sure the tests pass\", \"outcome\": false, \"diagnostic\": "
+        + Json.quote(diagnostic.toString()) + "}";
+
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      builder.append("progress ").append(i).append('\n').append(json).append('\n');
+    }
+    batch = builder.toString();
+    result = new CheckResult(json);
+  }
+
+  @Benchmark
+  public CheckResult parse() throws MalformedJsonException {
+    return new CheckResult(json);
+  }
+
+  @Benchmark
+  public List<CheckResult> parseAll() throws MalformedJsonException {
+    return CheckResult.parseAll(batch);
+  }
+
+  @Benchmark
+  public String textReport() {
+    return result.textReport(false);
+  }
+
+  @Benchmark
+  public String textReportWithDiagnostic() {
+    return result.textReport(true);
+  }
+}
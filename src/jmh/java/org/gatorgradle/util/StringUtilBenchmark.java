@@ -0,0 +1,54 @@
+package org.gatorgradle.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the string helpers used to lay out every line of the report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringUtilBenchmark {
+  @Param({"10", "100", "1000"})
+  public int width;
+
+  public String text = "Make sure that the file src/main/java/Main.java exists";
+
+  @Benchmark
+  public String clamp() {
+    return StringUtil.clamp(text, width);
+  }
+
+  @Benchmark
+  public String width() {
+    return StringUtil.width(text, width);
+  }
+
+  @Benchmark
+  public String spaces() {
+    return StringUtil.spaces(width);
+  }
+
+  @Benchmark
+  public String repeatString() {
+    return StringUtil.repeat("-=", width);
+  }
+
+  @Benchmark
+  public String repeatChar() {
+    return StringUtil.repeat('=', width);
+  }
+
+  @Benchmark
+  public String color() {
+    return StringUtil.color(StringUtil.GOOD, text);
+  }
+}
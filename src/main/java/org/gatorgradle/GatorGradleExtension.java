@@ -0,0 +1,44 @@
+package org.gatorgradle;
+
+import javax.inject.Inject;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+
+/**
+ * GatorGradleExtension is the gatorgradle block of a build script, which
+ * configures how the project is graded. Nothing in it is read until grading
+ * actually runs.
+ */
+public class GatorGradleExtension {
+  public static final String NAME = "gatorgradle";
+
+  private final RegularFileProperty configFile;
+  private final DirectoryProperty submissionsDir;
+
+  @Inject
+  public GatorGradleExtension(ObjectFactory objects) {
+    this.configFile = objects.fileProperty();
+    this.submissionsDir = objects.directoryProperty();
+  }
+
+  /**
+   * Get the config file listing the checks, config/gatorgrader.yml by default.
+   *
+   * @return the config file
+   */
+  public RegularFileProperty getConfigFile() {
+    return configFile;
+  }
+
+  /**
+   * Get the directory gradeAll grades every submission in, one submission per
+   * subdirectory. It can also be given with --submissions.
+   *
+   * @return the directory of submissions
+   */
+  public DirectoryProperty getSubmissionsDir() {
+    return submissionsDir;
+  }
+}
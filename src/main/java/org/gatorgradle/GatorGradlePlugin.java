@@ -3,20 +3,20 @@ package org.gatorgradle;
 import java.io.File;
 import java.util.Locale;
 
-import org.gatorgradle.config.GatorGradleConfig;
+import org.gatorgradle.task.GatorGradleAllTask;
+import org.gatorgradle.task.GatorGradleReportTask;
 import org.gatorgradle.task.GatorGradleTask;
 import org.gatorgradle.util.Console;
 
-import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.logging.Logger;
 
 /**
  * GatorGradlePlugin applies the plugin to a project, registers
  * the grade task, and sets up some sensible defaults.
- * TODO: allow DSL configuration block to specify
- *        CONFIG_FILE_LOCATION and GATORGRADER_HOME.
+ * TODO: allow the gatorgradle block to specify GATORGRADER_HOME.
  */
 public class GatorGradlePlugin implements Plugin<Project> {
   public static final String WINDOWS = "windows";
@@ -24,7 +24,17 @@ public class GatorGradlePlugin implements Plugin<Project> {
   public static final String MACOS = "mac";
 
   public static final String GATORGRADER_HOME;
+  public static final String GATORGRADLE_HOME;
+  public static final String GATORGRADER_PYTHON;
+  public static final boolean MANAGE_GATORGRADER;
   public static final String CONFIG_FILE_LOCATION;
+  public static final String COMPILED_CONFIG_FILE_LOCATION;
+  public static final String RESULTS_FILE_LOCATION;
+  public static final String JSON_RESULTS_FILE_LOCATION;
+  public static final String JUNIT_FILE_LOCATION;
+  public static final String STATE_DIR_LOCATION;
+  public static final String SUBMISSIONS_DIR_LOCATION;
+  public static final String REPORT_TASK_SUFFIX = "Report";
   public static final String USER_HOME;
   public static final String F_SEP;
   public static final String OS;
@@ -45,13 +55,31 @@ public class GatorGradlePlugin implements Plugin<Project> {
     }
 
     // TODO: is this a sensible default for gg home? - probably only on linux and mac
+    String graderHome;
+    String gradleHome;
     if (OS.equals(LINUX) || OS.equals(MACOS)) {
-      GATORGRADER_HOME = USER_HOME + F_SEP + ".local" + F_SEP + "share" + F_SEP + "gatorgrader";
+      graderHome = USER_HOME + F_SEP + ".local" + F_SEP + "share" + F_SEP + "gatorgrader";
+      gradleHome = USER_HOME + F_SEP + ".local" + F_SEP + "share" + F_SEP + "gatorgradle";
     } else {
-      GATORGRADER_HOME = USER_HOME + F_SEP + ".gatorgrader";
+      graderHome = USER_HOME + F_SEP + ".gatorgrader";
+      gradleHome = USER_HOME + F_SEP + ".gatorgradle";
     }
 
+    // a GatorGrader given through the environment is used as is, never cloned or updated
+    MANAGE_GATORGRADER = System.getenv("GATORGRADER_HOME") == null;
+    GATORGRADER_HOME = MANAGE_GATORGRADER ? graderHome : System.getenv("GATORGRADER_HOME");
+    GATORGRADLE_HOME = System.getenv("GATORGRADLE_HOME") == null
+        ? gradleHome : System.getenv("GATORGRADLE_HOME");
+    // runs GatorGrader with this Python instead of the one pipenv set up
+    GATORGRADER_PYTHON = System.getenv("GATORGRADER_PYTHON");
+
     CONFIG_FILE_LOCATION = "config" + F_SEP + "gatorgrader.yml";
+    COMPILED_CONFIG_FILE_LOCATION = "gatorgradle" + F_SEP + "config.bin";
+    RESULTS_FILE_LOCATION = "gatorgradle" + F_SEP + "grade-results.json";
+    JSON_RESULTS_FILE_LOCATION = "gatorgradle" + F_SEP + "results.jsonl";
+    JUNIT_FILE_LOCATION = "gatorgradle" + F_SEP + "junit" + F_SEP + "TEST-gatorgradle.xml";
+    STATE_DIR_LOCATION = "gatorgradle";
+    SUBMISSIONS_DIR_LOCATION = "gatorgradle" + F_SEP + "submissions";
   }
 
   /**
@@ -61,25 +89,62 @@ public class GatorGradlePlugin implements Plugin<Project> {
    */
   public void apply(final Project project) {
     Logger logger = project.getLogger();
-    // set config file location, then generate config
-    // TODO: what should we do for config file location?
-    GatorGradleConfig config =
-        GatorGradleConfig.create(project.file(CONFIG_FILE_LOCATION).toPath());
-
-    // ensure we got a configuration
-    if (config == null) {
-      throw new GradleException(
-          "GatorGradle grade task's configuration was not specified correctly!");
-    }
+    GatorGradleExtension extension = project.getExtensions()
+        .create(GatorGradleExtension.NAME, GatorGradleExtension.class);
+    extension.getConfigFile()
+        .convention(project.getLayout().getProjectDirectory().file(CONFIG_FILE_LOCATION));
 
     logger.lifecycle("Configured GatorGradle {}",
         GatorGradlePlugin.class.getPackage().getImplementationVersion());
 
-    // create gatorgradle 'grade' task
-    project.getTasks().create("grade", GatorGradleTask.class, task -> {
-      // default grade task uses config from above and project dir as grade
-      task.setConfig(config);
+    // every grading task is followed by a task showing its summary, named
+    // after it, which is only created once the build asks for it
+    project.getTasks().withType(GatorGradleTask.class).configureEach(task -> {
+      task.finalizedBy(task.getName() + REPORT_TASK_SUFFIX);
+    });
+    project.getTasks().addRule("Pattern: <grading task>" + REPORT_TASK_SUFFIX
+        + ": Shows the summary of a grading task.", name -> addReportTask(project, name));
+
+    // tasks are only created, and the config only read, once a build needs them
+    project.getTasks().register("grade" + REPORT_TASK_SUFFIX, GatorGradleReportTask.class,
+        task -> {
+          task.setResultsFile(buildFile(project, RESULTS_FILE_LOCATION));
+        });
+
+    project.getTasks().register("grade", GatorGradleTask.class, task -> {
+      // default grade task uses the extension's config and project dir as grade
+      task.getConfigFile().set(extension.getConfigFile());
+      task.setCompiledConfigFile(buildFile(project, COMPILED_CONFIG_FILE_LOCATION));
       task.setWorkingDir(project.getProjectDir());
+      task.setStateDir(buildFile(project, STATE_DIR_LOCATION));
+      task.setResultsFile(buildFile(project, RESULTS_FILE_LOCATION));
+      task.setJsonResultsFile(buildFile(project, JSON_RESULTS_FILE_LOCATION));
+      task.setJunitFile(buildFile(project, JUNIT_FILE_LOCATION));
+    });
+
+    // grades a whole directory of submissions with the same config
+    project.getTasks().register("gradeAll", GatorGradleAllTask.class, task -> {
+      task.getConfigFile().set(extension.getConfigFile());
+      task.getSubmissionsDir().set(extension.getSubmissionsDir());
+      task.setCompiledConfigFile(buildFile(project, COMPILED_CONFIG_FILE_LOCATION));
+      task.setOutputDir(buildFile(project, SUBMISSIONS_DIR_LOCATION));
     });
   }
+
+  private static void addReportTask(Project project, String name) {
+    if (!name.endsWith(REPORT_TASK_SUFFIX)) {
+      return;
+    }
+    Task grading = project.getTasks()
+        .findByName(name.substring(0, name.length() - REPORT_TASK_SUFFIX.length()));
+    if (grading instanceof GatorGradleTask) {
+      project.getTasks().create(name, GatorGradleReportTask.class, task -> {
+        task.setResultsFile(((GatorGradleTask) grading).getResultsFile());
+      });
+    }
+  }
+
+  private static File buildFile(Project project, String path) {
+    return new File(project.getLayout().getBuildDirectory().get().getAsFile(), path);
+  }
 }
@@ -1,32 +1,64 @@
 package org.gatorgradle.command;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.gatorgradle.internal.FlightEvents;
 import org.gatorgradle.util.Console;
+import org.gatorgradle.util.ProcessUtil;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logging;
 
 public class BasicCommand implements Command {
   private static final long serialVersionUID = 6412L;
+
+  // exit value used when the command could not be run at all
+  public static final int FAILED_TO_START = 127;
+  // exit value used when the command was killed for running out of time
+  public static final int TIMED_OUT = 124;
+
+  // characters of output kept in memory by default, see outputLimit
+  public static final int DEFAULT_OUTPUT_LIMIT = 1 << 20;
+  private static final int BUFFER_SIZE = 8192;
+
+  private static ScheduledExecutorService watchdog;
+
   private final List<String> command;
   private boolean outSys;
   private File workingDir;
 
   private String output;
   private transient Thread thread = null;
-  private Callback callback;
+  private transient volatile Process process;
+  private transient volatile boolean cancelled;
+  private transient volatile boolean timedOut;
+  private long timeout;
+
+  // System.nanoTime timestamps of the phases of the last run
+  private transient volatile boolean queued;
+  private transient long queuedAt;
+  private transient long startedAt;
+  private transient long spawnedAt;
+  private transient long finishedAt;
+  private int outputLimit = DEFAULT_OUTPUT_LIMIT;
+  private transient Callback callback;
 
   private boolean fin;
   private int exitVal = -1;
+  private long duration = -1;
 
   public BasicCommand(final String... command) {
     this.command = new ArrayList<>(Arrays.asList(command));
@@ -36,6 +68,29 @@ public class BasicCommand implements Command {
     this.command = new ArrayList<>(command);
   }
 
+  /**
+   * Create a command that runs just like this one, but has not run yet.
+   *
+   * @return the copy
+   */
+  public BasicCommand copy() {
+    return copyInto(new BasicCommand(command));
+  }
+
+  /**
+   * Give the given command the settings of this one.
+   *
+   * @param  copy the command to set up
+   * @return      the command
+   */
+  protected BasicCommand copyInto(final BasicCommand copy) {
+    copy.outSys = outSys;
+    copy.workingDir = workingDir;
+    copy.timeout = timeout;
+    copy.outputLimit = outputLimit;
+    return copy;
+  }
+
   public BasicCommand with(final String... command) {
     return with(Arrays.asList(command));
   }
@@ -50,6 +105,67 @@ public class BasicCommand implements Command {
     return this;
   }
 
+  /**
+   * Limit how long the command may run before it and every process it started
+   * are killed.
+   *
+   * @param  millis the time limit in milliseconds, or 0 for no limit
+   * @return        this command
+   */
+  public BasicCommand timeout(final long millis) {
+    timeout = millis;
+    return this;
+  }
+
+  /**
+   * Limit how much of the command's output is kept. Output beyond the limit is
+   * dropped from the middle, keeping its beginning and end.
+   *
+   * @param  chars the maximum number of characters to keep
+   * @return       this command
+   */
+  public BasicCommand outputLimit(final int chars) {
+    outputLimit = chars;
+    return this;
+  }
+
+  /**
+   * Note that the command has been queued to run, so the time it spends waiting
+   * to run can be told apart from the time it spends running.
+   */
+  public void markQueued() {
+    queuedAt = System.nanoTime();
+    queued = true;
+  }
+
+  public long getQueuedAt() {
+    return queuedAt;
+  }
+
+  public long getStartedAt() {
+    return startedAt;
+  }
+
+  public long getSpawnedAt() {
+    return spawnedAt;
+  }
+
+  public long getFinishedAt() {
+    return finishedAt;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  public int getOutputLimit() {
+    return outputLimit;
+  }
+
+  public boolean timedOut() {
+    return timedOut;
+  }
+
   public File getWorkingDir() {
     return workingDir;
   }
@@ -66,6 +182,24 @@ public class BasicCommand implements Command {
     return output;
   }
 
+  /**
+   * Get how long the command took to run the last time it was run.
+   *
+   * @return the duration in milliseconds, or -1 if the command did not run
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  /**
+   * Get the arguments of this command, including the executable.
+   *
+   * @return an unmodifiable view of the arguments
+   */
+  public List<String> arguments() {
+    return Collections.unmodifiableList(command);
+  }
+
   /**
    * Builds a descriptive string by recreating the command run.
    * @return a descriptive string
@@ -176,60 +310,171 @@ public class BasicCommand implements Command {
       throw new RuntimeException("Empty command run!");
     }
 
-    // final long startTime = System.nanoTime();
+    final long startTime = System.nanoTime();
+    startedAt = startTime;
+    spawnedAt = startTime;
+    if (!queued) {
+      queuedAt = startTime;
+    }
+    queued = false;
+
+    StringBuilder out = new StringBuilder();
+    FlightEvents.Scope event = FlightEvents.processRun(this);
+    try {
+      exitVal = execute(out);
+    } catch (Throwable thr) {
+      if (!cancelled) {
+        Logging.getLogger(BasicCommand.class)
+          .error("Exception while running {}: {}", toString(), thr.toString());
+      }
+      exitVal = FAILED_TO_START;
+    } finally {
+      fin = true;
+      output = out.toString();
+      event.withExitValue(exitVal).withOutputSize(out.length()).close();
+      finishedAt = System.nanoTime();
+      duration = TimeUnit.NANOSECONDS.toMillis(finishedAt - startTime);
+      if (callback != null) {
+        callback.accept(this);
+      }
+    }
+  }
+
+  /**
+   * Complete the command with a known result instead of running it, such as one
+   * restored from a cache. The callback is notified as if the command had run.
+   *
+   * @param exitValue the exit value of the command
+   * @param output    the output of the command
+   */
+  public void finish(int exitValue, String output) {
+    this.exitVal = exitValue;
+    this.output = output;
+    this.duration = -1;
+    this.fin = true;
+    if (callback != null) {
+      callback.accept(this);
+    }
+  }
 
+  private static synchronized ScheduledExecutorService watchdog() {
+    if (watchdog == null) {
+      watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "gatorgradle-timeout");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return watchdog;
+  }
+
+  /**
+   * Cancel the command. A command that has not started yet will not start, and
+   * a running command has its process, along with any processes it started,
+   * destroyed.
+   */
+  public void cancel() {
+    cancelled = true;
+    ProcessUtil.destroyTree(process);
+  }
+
+  public boolean cancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Run the command and collect its output. Subclasses may override this to run
+   * the command some other way than by starting a new process.
+   *
+   * @param  out the builder to append the command's output to
+   * @return     the exit value of the command
+   * @throws IOException if the process could not be started or read from
+   * @throws InterruptedException if interrupted while waiting for the process
+   */
+  protected int execute(StringBuilder out) throws IOException, InterruptedException {
     ProcessBuilder pb = new ProcessBuilder(command);
     if (workingDir != null) {
       pb.directory(workingDir);
     }
     pb.redirectErrorStream(true);
-    BufferedReader in = null;
-    StringBuilder out = null;
+    if (cancelled) {
+      throw new InterruptedException("Cancelled before starting");
+    }
+    Process proc;
+    FlightEvents.Scope spawn = FlightEvents.processSpawn(this);
     try {
-      Process proc = pb.start();
-
-      in = new BufferedReader(new InputStreamReader(proc.getInputStream(), "UTF-8"));
-
-      out = new StringBuilder();
-      int newChar;
-      while (true) {
-        newChar = in.read();
-        if (!(newChar > 0)) {
-          break;
+      proc = pb.start();
+    } finally {
+      spawn.close();
+    }
+    process = proc;
+    spawnedAt = System.nanoTime();
+    if (cancelled) {
+      // cancelled while starting, after cancel() last looked for the process
+      ProcessUtil.destroyTree(proc);
+    }
+    timedOut = false;
+    ScheduledFuture<?> kill = null;
+    if (timeout > 0) {
+      kill = watchdog().schedule(() -> {
+        // a process that already exited finished in time, however long reading took
+        if (proc.isAlive()) {
+          timedOut = true;
+          ProcessUtil.destroyTree(proc);
         }
-        out.append((char) newChar);
+      }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    CappedOutput capture = new CappedOutput(capsOutput() ? outputLimit : Integer.MAX_VALUE);
+    try (Reader in = new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8)) {
+      char[] buffer = new char[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        capture.append(buffer, 0, read);
         if (outSys) {
-          System.out.print((char) newChar);
+          System.out.print(new String(buffer, 0, read));
+          System.out.flush();
         }
       }
+    }
+    out.append(capture);
 
+    try {
       proc.waitFor();
-      exitVal = proc.exitValue();
-
-    } catch (Throwable thr) {
-      Logging.getLogger(BasicCommand.class)
-        .error("Exception while running {}: {}", toString(), thr.toString());
-      exitVal = 127;
     } finally {
-      fin = true;
-
-      if (out != null) {
-        output = out.toString();
-      }
-      if (callback != null) {
-        callback.accept(this);
-      }
-      try {
-        if (in != null) {
-          in.close();
-        }
-      } catch (IOException ex) {
-        Console.error("Failed to close command input stream!");
+      process = null;
+      if (kill != null) {
+        kill.cancel(false);
       }
     }
+    if (timedOut) {
+      return markTimedOut(out);
+    }
+    return proc.exitValue();
+  }
+
+  /**
+   * Check whether output beyond the output limit is dropped while it is read.
+   * Commands whose output has to be parsed whole return false, and have what
+   * they report limited once it is parsed instead.
+   *
+   * @return true if output is capped as it is read
+   */
+  protected boolean capsOutput() {
+    return true;
+  }
 
-    // Console.log("Command " + toString() + " finished in "
-    // + String.format("%.2fms!", (System.nanoTime() - startTime) / 1_000_000d));
+  /**
+   * Record that the command was stopped for running longer than its timeout,
+   * for subclasses that enforce the timeout some other way.
+   *
+   * @param  out the builder the command's output is appended to
+   * @return     the exit value of a command that timed out
+   */
+  protected int markTimedOut(StringBuilder out) {
+    timedOut = true;
+    out.append("\nTimed out after ").append(timeout / 1000.0).append(" seconds\n");
+    return TIMED_OUT;
   }
 
   /**
@@ -0,0 +1,93 @@
+package org.gatorgradle.command;
+
+import org.gatorgradle.util.StringUtil;
+
+/**
+ * Collects the output of a command without letting it grow without bound. The
+ * first half of the allowed characters is kept as is, and after that only the
+ * most recent characters are kept in a ring buffer, since both the start and
+ * the end of a long log tend to matter most. The ring buffer is only allocated
+ * once output outgrows the first half, so most commands never need it.
+ */
+class CappedOutput {
+  private final StringBuilder head;
+  private final int headLimit;
+  private final int tailLimit;
+  // only allocated once the head is full
+  private char[] tail;
+  private int tailStart;
+  private int tailLength;
+  private long omitted;
+
+  /**
+   * Create a buffer keeping at most the given number of characters.
+   *
+   * @param limit the maximum number of characters to keep
+   */
+  CappedOutput(int limit) {
+    this.headLimit = limit - limit / 2;
+    this.head = new StringBuilder(Math.min(headLimit, 8192));
+    this.tailLimit = limit / 2;
+  }
+
+  /**
+   * Add characters to the output.
+   *
+   * @param buf the buffer holding the characters
+   * @param off where the characters start in the buffer
+   * @param len how many characters to add
+   */
+  void append(char[] buf, int off, int len) {
+    int toHead = Math.min(len, headLimit - head.length());
+    if (toHead > 0) {
+      head.append(buf, off, toHead);
+      off += toHead;
+      len -= toHead;
+    }
+    if (len <= 0) {
+      return;
+    }
+    if (tailLimit == 0) {
+      omitted += len;
+      return;
+    }
+    if (tail == null) {
+      tail = new char[tailLimit];
+    }
+    if (len >= tail.length) {
+      // only the end of this chunk survives
+      omitted += tailLength + len - tail.length;
+      System.arraycopy(buf, off + len - tail.length, tail, 0, tail.length);
+      tailStart = 0;
+      tailLength = tail.length;
+      return;
+    }
+    // make room by dropping the oldest characters
+    int overflow = Math.max(0, tailLength + len - tail.length);
+    tailStart = (tailStart + overflow) % tail.length;
+    tailLength -= overflow;
+    omitted += overflow;
+
+    int end = (tailStart + tailLength) % tail.length;
+    int first = Math.min(len, tail.length - end);
+    System.arraycopy(buf, off, tail, end, first);
+    System.arraycopy(buf, off + first, tail, 0, len - first);
+    tailLength += len;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder out = new StringBuilder(head.length() + tailLength + 64);
+    out.append(head);
+    if (omitted > 0) {
+      out.append(StringUtil.omitted(omitted));
+    }
+    if (tail == null) {
+      return out.toString();
+    }
+    int firstPart = Math.min(tailLength, tail.length - tailStart);
+    out.append(tail, tailStart, firstPart);
+    out.append(tail, 0, tailLength - firstPart);
+    return out.toString();
+  }
+}
@@ -23,6 +23,10 @@ public interface Command extends Runnable, Serializable {
 
   public abstract void setCallback(Callback callback);
 
+  public abstract void cancel();
+
+  public abstract boolean cancelled();
+
   public static List<Command> list(String... cmds) {
     String[][] parsed = new String[cmds.length][];
     return list(parsed);
@@ -1,11 +1,14 @@
 package org.gatorgradle.command;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
 import org.gatorgradle.GatorGradlePlugin;
 
 import org.gatorgradle.internal.DependencyManager;
+import org.gatorgradle.internal.GatorGraderBatch;
+import org.gatorgradle.internal.GatorGraderDaemon;
 
 /**
  * GatorGraderCommand automatically adds the python and gatorgrader path to the beginning of the
@@ -17,6 +20,25 @@ public class GatorGraderCommand extends BasicCommand {
   private static final String WELCOME_FLAG = "--nowelcome";
   private static final String JSON_FLAG = "--json";
 
+  // python and gatorgrader.py come before the check arguments
+  private static final int PREFIX_LENGTH = 2;
+
+  /**
+   * How a GatorGrader check is run.
+   */
+  public enum Mode {
+    // a new Python process for every check
+    PROCESS,
+    // a pooled Python process per thread, see GatorGraderBatch
+    BATCH,
+    // a GatorGrader daemon shared across builds, see GatorGraderDaemon
+    DAEMON
+  }
+
+  private Mode mode = Mode.PROCESS;
+  private long daemonIdleTimeout = GatorGraderDaemon.DEFAULT_IDLE_TIMEOUT_SECONDS;
+  private transient GatorGraderBatch batch;
+
   public GatorGraderCommand(String... command) {
     this(Arrays.asList(command));
   }
@@ -32,4 +54,109 @@ public class GatorGraderCommand extends BasicCommand {
         WELCOME_FLAG, JSON_FLAG);
     super.with(command);
   }
+
+  private GatorGraderCommand(Mode mode, List<String> checkArguments) {
+    super(DependencyManager.getPython(),
+        GatorGradlePlugin.GATORGRADER_HOME + GatorGradlePlugin.F_SEP + "gatorgrader.py");
+    super.with(checkArguments);
+    this.mode = mode;
+  }
+
+  /**
+   * Recreate a command from what checkArguments returned for it, running it
+   * with the current Python and GatorGrader.
+   *
+   * @param  mode           the mode to run in
+   * @param  checkArguments the arguments passed to gatorgrader.py
+   * @return                the command
+   */
+  public static GatorGraderCommand restore(Mode mode, List<String> checkArguments) {
+    return new GatorGraderCommand(mode, checkArguments);
+  }
+
+  /**
+   * Set how this check is run.
+   *
+   * @param  mode the mode to run in
+   * @return      this command
+   */
+  public GatorGraderCommand mode(Mode mode) {
+    this.mode = mode;
+    return this;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Set how long a daemon started to run this check stays idle before it
+   * stops by itself. Only used in daemon mode.
+   *
+   * @param  seconds the idle timeout in seconds
+   * @return         this command
+   */
+  public GatorGraderCommand daemonIdleTimeout(long seconds) {
+    this.daemonIdleTimeout = seconds;
+    return this;
+  }
+
+  public long getDaemonIdleTimeout() {
+    return daemonIdleTimeout;
+  }
+
+  /**
+   * Set the pool of interpreters this check runs through in batch mode. Without
+   * one, a batch check runs in a new Python process like any other.
+   *
+   * @param  batch the pool of the grading run this check belongs to
+   * @return       this command
+   */
+  public GatorGraderCommand batch(GatorGraderBatch batch) {
+    this.batch = batch;
+    return this;
+  }
+
+  /**
+   * Get the arguments passed to gatorgrader.py, without the Python executable
+   * and script path that precede them.
+   *
+   * @return an unmodifiable view of the check arguments
+   */
+  public List<String> checkArguments() {
+    List<String> args = arguments();
+    return args.subList(PREFIX_LENGTH, args.size());
+  }
+
+  @Override
+  public GatorGraderCommand copy() {
+    return ((GatorGraderCommand) copyInto(new GatorGraderCommand(mode, checkArguments())))
+        .daemonIdleTimeout(daemonIdleTimeout);
+  }
+
+  /**
+   * GatorGrader reports its result as a single line of JSON, which dropping
+   * characters from would make unreadable, so the output is kept whole and
+   * the parsed diagnostic is limited instead, in every mode.
+   */
+  @Override
+  protected boolean capsOutput() {
+    return false;
+  }
+
+  @Override
+  protected int execute(StringBuilder out) throws IOException, InterruptedException {
+    if (mode == Mode.PROCESS || (mode == Mode.BATCH && batch == null)) {
+      return super.execute(out);
+    }
+    if (cancelled()) {
+      throw new InterruptedException("Cancelled before starting");
+    }
+    List<String> args = checkArguments();
+    GatorGraderBatch.Result result = mode == Mode.DAEMON
+        ? GatorGraderDaemon.run(getWorkingDir(), args, getTimeout(), daemonIdleTimeout)
+        : batch.run(getWorkingDir(), args, getTimeout());
+    out.append(result.output);
+    return result.timedOut ? markTimedOut(out) : result.exitValue;
+  }
 }
@@ -0,0 +1,378 @@
+package org.gatorgradle.config;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gatorgradle.GatorGradlePlugin;
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.command.GatorGraderCommand;
+import org.gatorgradle.util.Console;
+import org.gatorgradle.util.HashUtil;
+
+/**
+ * CompiledConfig keeps a parsed config file, along with the checks built from
+ * it, in a compact binary file, so an unchanged config can be loaded without
+ * parsing it or tokenizing its checks again. The file is only used while the
+ * contents of the config file, the plugin code, and the format all match.
+ *
+ * <p>GatorGrader checks are kept as their arguments alone, so the Python and
+ * GatorGrader they run with are looked up again each time they are loaded.
+ */
+class CompiledConfig {
+  private static final int MAGIC = 0x47474346;
+  // change whenever parsing or building commands changes what a config means
+  private static final int FORMAT = 2;
+
+  private static final byte BASIC = 0;
+  private static final byte GATORGRADER = 1;
+
+  // identifies the code that parsed the config, or null if it cannot be read
+  private static final String PLUGIN_HASH = hashPlugin();
+
+  private final Path file;
+  private final String key;
+  private ConfigMap map;
+  // the header as parsed, before overrides were put into the map
+  private Map<String, ConfigMap.Value> headers;
+  private String commandsKey;
+  private List<Command> commands;
+
+  // the strings read or written so far, see readString
+  private final List<String> strings = new ArrayList<>();
+  private final Map<String, Integer> stringIndex = new HashMap<>();
+
+  private CompiledConfig(Path file, String key) {
+    this.file = file;
+    this.key = key;
+  }
+
+  /**
+   * Load the compiled form of the given config file, if it is stored in the
+   * given file and still up to date.
+   *
+   * @param  file       the file the compiled config is stored in
+   * @param  configFile the config file it was compiled from
+   * @return            the compiled config, which is empty if it was missing or stale
+   */
+  static CompiledConfig load(Path file, Path configFile) {
+    String hash;
+    try {
+      hash = HashUtil.sha256(configFile);
+    } catch (IOException ex) {
+      // the config file cannot be read, parsing it will say why
+      return new CompiledConfig(file, null);
+    }
+    if (PLUGIN_HASH == null) {
+      // nothing tells a config compiled by other code apart, so never keep one
+      return new CompiledConfig(file, null);
+    }
+    CompiledConfig compiled = new CompiledConfig(file, FORMAT + ":" + PLUGIN_HASH + ":" + hash);
+    if (Files.isRegularFile(file)) {
+      try (DataInputStream in = new DataInputStream(
+          new ByteArrayInputStream(Files.readAllBytes(file)))) {
+        compiled.readFrom(in, configFile);
+      } catch (IOException | RuntimeException ex) {
+        compiled.map = null;
+        compiled.headers = null;
+        compiled.commandsKey = null;
+        compiled.commands = null;
+      }
+    }
+    return compiled;
+  }
+
+  /**
+   * Get the config as it was parsed.
+   *
+   * @return the parsed config, or null if it has to be parsed again
+   */
+  ConfigMap getMap() {
+    return map;
+  }
+
+  /**
+   * Get the checks built from the config with the given header overrides.
+   *
+   * @param  overridesKey identifies the header overrides in effect
+   * @return              the checks, or null if they have to be built again
+   */
+  List<Command> getCommands(String overridesKey) {
+    if (!overridesKey.equals(commandsKey)) {
+      return null;
+    }
+    // pure checks must still be in a directory, which building them again reports
+    for (Command cmd : commands) {
+      if (cmd.getWorkingDir() != null && !cmd.getWorkingDir().isDirectory()) {
+        return null;
+      }
+    }
+    return commands;
+  }
+
+  /**
+   * Store the given parsed config. Call this before any header overrides are
+   * put into it.
+   *
+   * @param map the parsed config
+   */
+  void save(ConfigMap map) {
+    this.map = map;
+    this.headers = new LinkedHashMap<>();
+    map.getHeaderNames().forEach(name -> headers.put(name, map.getHeader(name)));
+    this.commandsKey = null;
+    this.commands = null;
+    write();
+  }
+
+  /**
+   * Store the checks built from the stored config along with it.
+   *
+   * @param overridesKey identifies the header overrides the checks were built with
+   * @param commands     the checks
+   */
+  void saveCommands(String overridesKey, Collection<Command> commands) {
+    if (map == null) {
+      return;
+    }
+    this.commandsKey = overridesKey;
+    this.commands = new ArrayList<>(commands);
+    write();
+  }
+
+  /**
+   * Hash the jar or classes directory the plugin was loaded from, since the
+   * version in a jar manifest is missing for builds from a class directory and
+   * the same across snapshot builds.
+   */
+  private static String hashPlugin() {
+    try {
+      CodeSource source = GatorGradlePlugin.class.getProtectionDomain().getCodeSource();
+      if (source == null || source.getLocation() == null) {
+        return null;
+      }
+      Path root = Paths.get(source.getLocation().toURI());
+      if (Files.isRegularFile(root)) {
+        return HashUtil.sha256(root);
+      }
+      MessageDigest digest = HashUtil.digest();
+      try (Stream<Path> paths = Files.walk(root)) {
+        for (Path path : paths.filter(Files::isRegularFile).sorted()
+            .collect(Collectors.toList())) {
+          digest.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+          digest.update((byte) 0);
+          digest.update(HashUtil.sha256(path).getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      return HashUtil.hex(digest.digest());
+    } catch (IOException | URISyntaxException | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Write everything stored to the file, replacing it atomically.
+   */
+  private void write() {
+    if (key == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "config", ".tmp");
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        writeTo(out);
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      Console.error("Failed to save " + file + ": " + ex.getMessage());
+    }
+  }
+
+  private void readFrom(DataInputStream in, Path configFile) throws IOException {
+    strings.clear();
+    if (in.readInt() != MAGIC || !readString(in).equals(key)) {
+      return;
+    }
+    ConfigMap restored = new ConfigMap(configFile);
+    Map<String, ConfigMap.Value> restoredHeaders = new LinkedHashMap<>();
+    int count = readCount(in);
+    for (int i = 0; i < count; i++) {
+      String name = readString(in);
+      ConfigMap.Value value = readValue(in);
+      restored.putHeader(name, value);
+      restoredHeaders.put(name, value);
+    }
+    int paths = readCount(in);
+    for (int i = 0; i < paths; i++) {
+      String path = readString(in);
+      int checks = readCount(in);
+      for (int j = 0; j < checks; j++) {
+        restored.addCheck(path, readValue(in));
+      }
+    }
+
+    String overridesKey = null;
+    List<Command> restoredCommands = null;
+    if (in.readBoolean()) {
+      overridesKey = readString(in);
+      count = readCount(in);
+      restoredCommands = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        restoredCommands.add(readCommand(in));
+      }
+    }
+    map = restored;
+    headers = restoredHeaders;
+    commandsKey = overridesKey;
+    commands = restoredCommands;
+  }
+
+  private void writeTo(DataOutputStream out) throws IOException {
+    stringIndex.clear();
+    out.writeInt(MAGIC);
+    writeString(out, key);
+    out.writeInt(headers.size());
+    for (Map.Entry<String, ConfigMap.Value> header : headers.entrySet()) {
+      writeString(out, header.getKey());
+      writeValue(out, header.getValue());
+    }
+    out.writeInt(map.getPaths().size());
+    for (String path : map.getPaths()) {
+      writeString(out, path);
+      List<ConfigMap.Value> checks = map.getChecks(path);
+      out.writeInt(checks.size());
+      for (ConfigMap.Value check : checks) {
+        writeValue(out, check);
+      }
+    }
+
+    out.writeBoolean(commands != null);
+    if (commands != null) {
+      writeString(out, commandsKey);
+      out.writeInt(commands.size());
+      for (Command cmd : commands) {
+        writeCommand(out, (BasicCommand) cmd);
+      }
+    }
+  }
+
+  private Command readCommand(DataInputStream in) throws IOException {
+    boolean gatorgrader = in.readByte() == GATORGRADER;
+    GatorGraderCommand.Mode mode =
+        gatorgrader ? GatorGraderCommand.Mode.values()[in.readByte()] : null;
+    long daemonIdleTimeout = gatorgrader ? in.readLong() : 0;
+    int args = readCount(in);
+    List<String> arguments = new ArrayList<>(args);
+    for (int i = 0; i < args; i++) {
+      arguments.add(readString(in));
+    }
+    BasicCommand cmd = gatorgrader
+        ? GatorGraderCommand.restore(mode, arguments).daemonIdleTimeout(daemonIdleTimeout)
+        : new BasicCommand(arguments);
+    cmd.outputToSysOut(false);
+    if (in.readBoolean()) {
+      cmd.setWorkingDir(new File(readString(in)));
+    }
+    cmd.timeout(in.readLong());
+    cmd.outputLimit(in.readInt());
+    return cmd;
+  }
+
+  private void writeCommand(DataOutputStream out, BasicCommand cmd) throws IOException {
+    List<String> arguments;
+    if (cmd instanceof GatorGraderCommand) {
+      out.writeByte(GATORGRADER);
+      out.writeByte(((GatorGraderCommand) cmd).getMode().ordinal());
+      out.writeLong(((GatorGraderCommand) cmd).getDaemonIdleTimeout());
+      arguments = ((GatorGraderCommand) cmd).checkArguments();
+    } else {
+      out.writeByte(BASIC);
+      arguments = cmd.arguments();
+    }
+    out.writeInt(arguments.size());
+    for (String arg : arguments) {
+      writeString(out, arg);
+    }
+    out.writeBoolean(cmd.getWorkingDir() != null);
+    if (cmd.getWorkingDir() != null) {
+      writeString(out, cmd.getWorkingDir().getPath());
+    }
+    out.writeLong(cmd.getTimeout());
+    out.writeInt(cmd.getOutputLimit());
+  }
+
+  private ConfigMap.Value readValue(DataInputStream in) throws IOException {
+    String value = readString(in);
+    return new ConfigMap.Value(value, in.readInt());
+  }
+
+  private void writeValue(DataOutputStream out, ConfigMap.Value value)
+      throws IOException {
+    writeString(out, value.asString());
+    out.writeInt(value.lineNumber());
+  }
+
+  /**
+   * Read a string. Each distinct string is only written out the first time,
+   * and referred to by its index after that, since checks share most of their
+   * arguments. Unlike readUTF, strings may be longer than 64K.
+   */
+  private String readString(DataInputStream in) throws IOException {
+    int index = in.readInt();
+    if (index < 0 || index > strings.size()) {
+      throw new IOException("String " + index + " is out of range");
+    }
+    if (index < strings.size()) {
+      return strings.get(index);
+    }
+    byte[] bytes = new byte[readCount(in)];
+    in.readFully(bytes);
+    String str = new String(bytes, StandardCharsets.UTF_8);
+    strings.add(str);
+    return str;
+  }
+
+  // a damaged file must not make us allocate more than it could possibly hold
+  private static int readCount(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    if (count < 0 || count > in.available()) {
+      throw new IOException("Count of " + count + " is out of range");
+    }
+    return count;
+  }
+
+  private void writeString(DataOutputStream out, String str) throws IOException {
+    Integer index = stringIndex.get(str);
+    if (index != null) {
+      out.writeInt(index);
+      return;
+    }
+    out.writeInt(stringIndex.size());
+    stringIndex.put(str, stringIndex.size());
+    byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
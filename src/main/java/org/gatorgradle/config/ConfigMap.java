@@ -1,18 +1,20 @@
 package org.gatorgradle.config;
 
+import java.io.BufferedReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.gatorgradle.GatorGradlePlugin;
-import org.gatorgradle.util.StringUtil;
+import org.gatorgradle.internal.FlightEvents;
 
 import org.gradle.api.GradleException;
 
@@ -20,6 +22,9 @@ public class ConfigMap {
   public static final String KEYVAL_SEP = ":";
   public static final String MARK_REGEX = "^-{3,}$";
 
+  private static final Pattern MARK_PATTERN = Pattern.compile(MARK_REGEX);
+  private static final Pattern PATH_PATTERN = Pattern.compile("\\S" + KEYVAL_SEP);
+
   private static class Line {
     int number;
     String content;
@@ -54,17 +59,9 @@ public class ConfigMap {
       }
     }
 
-    public boolean isEmpty() {
-      return content == null || content.trim().length() == 0;
-    }
-
     public String toString() {
       return content;
     }
-
-    public boolean matches(String regex) {
-      return content.matches(regex);
-    }
   }
 
   public static class Value {
@@ -144,31 +141,45 @@ public class ConfigMap {
   }
 
   /**
-   * Parses the config file.
+   * Parses the config file. Lines are read once, and the body is built from
+   * them in a single pass that keeps the paths still open in a stack.
    */
   public void parse() {
-    try (Stream<String> strLines = Files.lines(path)) {
-      final AtomicInteger lineNumber = new AtomicInteger(0);
-      List<Line> lines =
-          strLines.map(str -> new Line(lineNumber.incrementAndGet(), str))
-              .filter(line -> !line.isEmpty() && !line.content.trim().startsWith("#"))
-              .collect(Collectors.toList());
-      int divider = lines.isEmpty() ? 0 : lines.get(0).number;
-      int marks = 0;
-      for (int i = 0; i < lines.size(); i++) {
-        if (lines.get(i).content.matches(MARK_REGEX)) {
-          marks++;
-          divider = i;
+    try (FlightEvents.Scope event = FlightEvents.configParse(path.toString());
+        BufferedReader reader = Files.newBufferedReader(path)) {
+      List<Line> lines = new ArrayList<>();
+      // lines before the last mark are the header, the rest is the body
+      int divider = -1;
+      int lineNumber = 0;
+      String content;
+      while ((content = reader.readLine()) != null) {
+        lineNumber++;
+        String trimmed = content.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+          continue;
+        }
+        if (MARK_PATTERN.matcher(content).matches()) {
+          divider = lines.size();
+        } else {
+          lines.add(new Line(lineNumber, content));
         }
       }
-      divider -= marks - 1;
-      lines.removeIf(line -> line.content.matches(MARK_REGEX));
+      event.withCount(lineNumber);
+      if (divider < 0) {
+        throw new GradleException("No line of at least three dashes separates the header from"
+            + " the body");
+      }
 
       // parse header
-      lines.subList(0, divider).forEach(line -> {
-        String[] spl = line.content.split(KEYVAL_SEP, 2);
-        header.put(spl[0].trim(), new Value(spl[1].trim(), line.number));
-      });
+      for (Line line : lines.subList(0, divider)) {
+        int sep = line.content.indexOf(KEYVAL_SEP);
+        if (sep < 0) {
+          throw new GradleException("Expected 'name" + KEYVAL_SEP + " value' in the header on line "
+              + line.number + ", not '" + line.content.trim() + "'");
+        }
+        header.put(line.content.substring(0, sep).trim(),
+            new Value(line.content.substring(sep + 1).trim(), line.number));
+      }
 
       if (hasHeader("indent")) {
         Value indent = getHeader("indent");
@@ -181,7 +192,7 @@ public class ConfigMap {
       lines.forEach(line -> line.calcIndentLevel(indentSpacing));
 
       // parse body
-      parseBody("", lines.subList(divider, lines.size()));
+      parseBody(lines.subList(divider, lines.size()));
     } catch (RuntimeException ex) {
       throw new GradleException(
           "Failed to read config file \"" + path + "\": " + ex.getMessage(), ex);
@@ -191,31 +202,44 @@ public class ConfigMap {
     }
   }
 
-  private void parseBody(String path, List<Line> lines) {
-    for (int i = 0; i < lines.size(); i++) {
-      Line line = lines.get(i);
-      if (line.matches(".*\\S+" + KEYVAL_SEP + ".*")) {
-        // line denotes a path (and maybe value after)
-        String[] controls = line.content.trim().split(KEYVAL_SEP, 2);
-        List<Line> subLines = new ArrayList<>();
-        if (controls.length > 1 && controls[1].trim().length() > 0) {
-          subLines.add(new Line(
-              line.number, StringUtil.repeat('\t', line.indentLevel + 1) + controls[1].trim()));
-        }
-
-        while (i + 1 < lines.size() && lines.get(i + 1).indentLevel > line.indentLevel) {
-          subLines.add(lines.get(++i));
-        }
-
-        parseBody((path.isEmpty() ? "" : path + GatorGradlePlugin.F_SEP) + controls[0], subLines);
-      } else {
-        // line is a value, add it to the current path
-        addCheck(path, new Value(line.content.trim(), line.number));
+  /**
+   * Build the body from its lines. A line naming a path holds every line after
+   * it that is indented further, up to the first one that is not; all other
+   * lines are checks in the innermost path holding them.
+   */
+  private void parseBody(List<Line> lines) {
+    // the paths holding the current line, innermost last
+    Deque<String> paths = new ArrayDeque<>();
+    Deque<Integer> levels = new ArrayDeque<>();
+    for (Line line : lines) {
+      while (!levels.isEmpty() && levels.peekLast() >= line.indentLevel) {
+        levels.removeLast();
+        paths.removeLast();
+      }
+      String content = line.content.trim();
+      // a path may be followed by a value, which may be another path
+      while (isPath(content)) {
+        String[] controls = content.split(KEYVAL_SEP, 2);
+        String parent = paths.isEmpty() ? "" : paths.peekLast();
+        paths.addLast((parent.isEmpty() ? "" : parent + GatorGradlePlugin.F_SEP) + controls[0]);
+        levels.addLast(line.indentLevel);
+        content = controls.length > 1 ? controls[1].trim() : "";
+      }
+      if (!content.isEmpty()) {
+        addCheck(paths.isEmpty() ? "" : paths.peekLast(), new Value(content, line.number));
       }
     }
   }
 
-  private void addCheck(String path, Value value) {
+  /**
+   * Check if the given line names a path, which it does if a separator
+   * directly follows something other than whitespace.
+   */
+  private static boolean isPath(String content) {
+    return PATH_PATTERN.matcher(content).find();
+  }
+
+  void addCheck(String path, Value value) {
     List<Value> vals = body.get(path);
     if (vals == null) {
       vals = new ArrayList<>();
@@ -230,10 +254,18 @@ public class ConfigMap {
     return header.get(name);
   }
 
+  public void putHeader(String name, Value value) {
+    header.put(name, value);
+  }
+
   public boolean hasHeader(String name) {
     return header.containsKey(name);
   }
 
+  Set<String> getHeaderNames() {
+    return header.keySet();
+  }
+
   /**
    * Get the values associated with the given path.
    *
@@ -13,7 +13,10 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -24,7 +27,9 @@ import org.gatorgradle.GatorGradlePlugin;
 import org.gatorgradle.command.BasicCommand;
 import org.gatorgradle.command.Command;
 import org.gatorgradle.command.GatorGraderCommand;
+import org.gatorgradle.internal.GatorGraderDaemon;
 import org.gatorgradle.util.Console;
+import org.gatorgradle.util.HashUtil;
 
 import org.gradle.api.GradleException;
 
@@ -33,43 +38,62 @@ import org.gradle.api.GradleException;
  * TODO: make this configurable via DSL blocks in build.gradle
  */
 public class GatorGradleConfig implements Iterable<Command> {
-
-  private static GatorGradleConfig singleton;
+  public static final String GIT_DIR = ".git";
 
   /**
-   * Get the config.
+   * Create the config by parsing the given file.
    *
-   * @return the config
+   * @param  configFile the file to be parsed
+   * @return            the config
    */
-  public static GatorGradleConfig get() {
-    if (singleton != null) {
-      return singleton;
-    }
-    throw new RuntimeException("GatorGradleConfig not created");
+  public static GatorGradleConfig create(Path configFile) {
+    return create(configFile, null);
   }
 
   /**
-   * Create the config by parsing the given file.
+   * Create the config by parsing the given file, keeping the parsed config in
+   * the given compiled file so it only has to be parsed again once it changes.
    *
-   * @param  configFile the file to be parsed
-   * @return            the config
+   * @param  configFile   the file to be parsed
+   * @param  compiledFile where to keep the parsed config, or null to always parse it
+   * @return              the config
    */
-  public static GatorGradleConfig create(Path configFile) {
-    singleton = new GatorGradleConfig(configFile);
-    return singleton;
+  public static GatorGradleConfig create(Path configFile, Path compiledFile) {
+    GatorGradleConfig config = new GatorGradleConfig(configFile);
+    config.compiledFile = compiledFile;
+    return config;
   }
 
   private static final Pattern commandPattern = Pattern.compile("([^\"]\\S*|\".+?\")\\s*");
   private static final String pureIndicator = "(pure)";
+  private static final Pattern timeoutPattern = Pattern.compile("^\\(timeout\\s+(\\d+)\\)\\s*");
+  private static final String ARBITRARY_COMMAND_FLAG = "--command";
+  private static final int DEFAULT_SLOWEST_SHOWN = 10;
 
   private boolean breakBuild = false;
   private boolean fastBreakBuild = false;
+  private boolean cacheResults = false;
+  // 0 until the config gives it, see getParallelism
+  private int parallelism = 0;
+  private int defaultParallelism = Runtime.getRuntime().availableProcessors();
+  private long checkTimeout = 0;
+  private long totalTimeout = 0;
+  private int outputLimit = BasicCommand.DEFAULT_OUTPUT_LIMIT;
+  private int slowestShown = 0;
+  private GatorGraderCommand.Mode gatorgraderMode = GatorGraderCommand.Mode.PROCESS;
+  private long daemonIdleTimeout = GatorGraderDaemon.DEFAULT_IDLE_TIMEOUT_SECONDS;
   private String assignmentName = "this assignment";
   private String gatorgraderRevision = "master";
   private Collection<String> commandLineExecutables;
   private Command startupCommand = null;
   private Set<Command> gradingCommands;
   private ConfigMap file;
+  private Path configFile;
+  private Path compiledFile;
+  private CompiledConfig compiled;
+  private String overridesKey = "";
+  private boolean headerParsed = false;
+  private boolean bodyParsed = false;
 
   private GatorGradleConfig() {
     gradingCommands = new HashSet<>();
@@ -86,6 +110,7 @@ public class GatorGradleConfig implements Iterable<Command> {
    */
   private GatorGradleConfig(Path configFile) {
     this();
+    this.configFile = configFile;
     this.file = new ConfigMap(configFile);
   }
 
@@ -130,11 +155,13 @@ public class GatorGradleConfig implements Iterable<Command> {
     if (path == null) {
       path = "";
     }
-    List<String> splits = new ArrayList<>();
-    Matcher mtc = commandPattern.matcher(line);
-    while (mtc.find()) {
-      splits.add(mtc.group(1).replace("\"", ""));
+    long timeout = checkTimeout;
+    Matcher limit = timeoutPattern.matcher(line);
+    if (limit.find()) {
+      timeout = TimeUnit.SECONDS.toMillis(Long.parseLong(limit.group(1)));
+      line = line.substring(limit.end());
     }
+    List<String> splits = tokenize(line);
 
     // FIXME: there should be a better method of determining which path separator is used
     // in the config file -- it is independent of the OS.
@@ -167,7 +194,7 @@ public class GatorGradleConfig implements Iterable<Command> {
       cmd.outputToSysOut(false);
       splits.add(path.length() > 0 ? path : ".");
     } else {
-      cmd = new GatorGraderCommand();
+      cmd = new GatorGraderCommand().mode(gatorgraderMode).daemonIdleTimeout(daemonIdleTimeout);
       cmd.outputToSysOut(false);
       if (name.length() > 0) {
         splits.add("--file");
@@ -180,15 +207,60 @@ public class GatorGradleConfig implements Iterable<Command> {
     }
 
     cmd.with(splits);
+    cmd.timeout(timeout);
+    cmd.outputLimit(outputLimit);
 
     return cmd;
   }
 
+  /**
+   * Split a line of a config file into the arguments of a command, keeping
+   * quoted arguments together.
+   *
+   * @param  line the line to split
+   * @return      the arguments, without quotes
+   */
+  static List<String> tokenize(String line) {
+    List<String> splits = new ArrayList<>();
+    Matcher mtc = commandPattern.matcher(line);
+    while (mtc.find()) {
+      splits.add(mtc.group(1).replace("\"", ""));
+    }
+    return splits;
+  }
+
   /**
    * Parses the config file's header.
    */
   public void parseHeader() {
-    file.parse();
+    parseHeader(Collections.emptyMap());
+  }
+
+  /**
+   * Parses the config file's header, letting the given values take precedence
+   * over the ones in the file.
+   *
+   * @param overrides header names mapped to the values that override them
+   */
+  public void parseHeader(Map<String, String> overrides) {
+    if (headerParsed) {
+      return;
+    }
+    headerParsed = true;
+    if (compiledFile != null) {
+      compiled = CompiledConfig.load(compiledFile, configFile);
+    }
+    if (compiled != null && compiled.getMap() != null) {
+      file = compiled.getMap();
+    } else {
+      file.parse();
+      if (compiled != null) {
+        compiled.save(file);
+      }
+    }
+    // checks built with other overrides, like another timeout, cannot be reused
+    overridesKey = HashUtil.sha256(new TreeMap<>(overrides).toString());
+    overrides.forEach((name, value) -> file.putHeader(name, new ConfigMap.Value(value, 0)));
     assignmentName = file.getHeader("name").asString();
 
     if (file.hasHeader("break")) {
@@ -199,6 +271,60 @@ public class GatorGradleConfig implements Iterable<Command> {
       fastBreakBuild = file.getHeader("fastfail").asBoolean();
     }
 
+    if (file.hasHeader("cache")) {
+      cacheResults = file.getHeader("cache").asBoolean();
+    }
+
+    if (file.hasHeader("parallelism")) {
+      parallelism = file.getHeader("parallelism").asInteger();
+      if (parallelism < 1) {
+        throw new GradleException("Parallelism must be at least 1, not " + parallelism);
+      }
+    }
+
+    if (file.hasHeader("timeout")) {
+      checkTimeout = TimeUnit.SECONDS.toMillis(file.getHeader("timeout").asInteger());
+    }
+
+    if (file.hasHeader("totaltimeout")) {
+      totalTimeout = TimeUnit.SECONDS.toMillis(file.getHeader("totaltimeout").asInteger());
+    }
+
+    if (file.hasHeader("outputlimit")) {
+      outputLimit = file.getHeader("outputlimit").asInteger();
+      if (outputLimit < 0) {
+        throw new GradleException("Output limit must not be negative, not " + outputLimit);
+      }
+    }
+
+    if (file.hasHeader("profile")) {
+      ConfigMap.Value profile = file.getHeader("profile");
+      if (profile.asString().trim().isEmpty()) {
+        // given as a bare -Pgatorgradle.profile
+        slowestShown = DEFAULT_SLOWEST_SHOWN;
+      } else if (profile.matches("\\d+")) {
+        slowestShown = profile.asInteger();
+      } else {
+        slowestShown = profile.asBoolean() ? DEFAULT_SLOWEST_SHOWN : 0;
+      }
+    }
+
+    if (file.hasHeader("batch") && file.getHeader("batch").asBoolean()) {
+      gatorgraderMode = GatorGraderCommand.Mode.BATCH;
+    }
+
+    if (file.hasHeader("daemon") && file.getHeader("daemon").asBoolean()) {
+      gatorgraderMode = GatorGraderCommand.Mode.DAEMON;
+    }
+
+    if (file.hasHeader("daemonidle")) {
+      daemonIdleTimeout = file.getHeader("daemonidle").asInteger();
+      if (daemonIdleTimeout < 1) {
+        throw new GradleException(
+            "Daemon idle timeout must be at least 1 second, not " + daemonIdleTimeout);
+      }
+    }
+
     if (file.hasHeader("version")) {
       gatorgraderRevision = file.getHeader("version").asString();
     }
@@ -222,9 +348,21 @@ public class GatorGradleConfig implements Iterable<Command> {
    * Parses the config file's body.
    */
   public void parseBody() {
+    if (bodyParsed) {
+      return;
+    }
+    bodyParsed = true;
 
+    List<Command> restored = compiled == null ? null : compiled.getCommands(overridesKey);
+    if (restored != null) {
+      gradingCommands.addAll(restored);
+      return;
+    }
     file.getPaths().forEach(
         path -> file.getChecks(path).forEach(val -> with(makeCommand(path, val.asString()))));
+    if (compiled != null) {
+      compiled.saveCommands(overridesKey, gradingCommands);
+    }
   }
 
   /**
@@ -257,6 +395,43 @@ public class GatorGradleConfig implements Iterable<Command> {
               gradingCommands.stream().map(cmd -> cmd.toString()).collect(Collectors.toList()));
   }
 
+  /**
+   * Determine which paths, relative to the project directory, the checks in this
+   * config can look at. Only the header needs to have been parsed. Checks that
+   * may look at anything, such as the startup command or pure checks outside of
+   * a directory context, are represented by the empty path.
+   *
+   * @return the set of paths
+   */
+  public Set<String> getInputPaths() {
+    Set<String> paths = new HashSet<>();
+    if (hasStartupCommand()) {
+      paths.add("");
+    }
+    for (String path : file.getPaths()) {
+      for (ConfigMap.Value val : file.getChecks(path)) {
+        String check = timeoutPattern.matcher(val.asString().trim()).replaceFirst("");
+        String exec = check.split("\\s+", 2)[0];
+        if (check.contains(ARBITRARY_COMMAND_FLAG)) {
+          paths.add("");
+        } else if (path.isEmpty()
+            && (pureIndicator.equals(exec) || isCommandLineExecutable(exec))) {
+          paths.add("");
+        } else if (path.isEmpty()) {
+          // context-free GatorGrader checks look at the repository, like --commits
+          paths.add(GIT_DIR);
+        } else {
+          paths.add(path);
+        }
+      }
+    }
+    return paths;
+  }
+
+  public Path getConfigFile() {
+    return configFile;
+  }
+
   public Iterator<Command> iterator() {
     return gradingCommands.iterator();
   }
@@ -269,6 +444,51 @@ public class GatorGradleConfig implements Iterable<Command> {
     return fastBreakBuild;
   }
 
+  public boolean shouldCacheResults() {
+    return cacheResults;
+  }
+
+  /**
+   * Get how long all checks together may take before grading is abandoned.
+   *
+   * @return the time limit in milliseconds, or 0 for no limit
+   */
+  public long getTotalTimeout() {
+    return totalTimeout;
+  }
+
+  /**
+   * Get how many of the slowest checks to list after the summary.
+   *
+   * @return the number of checks, or 0 to not list any
+   */
+  public int getSlowestShown() {
+    return slowestShown;
+  }
+
+  /**
+   * Set how many checks may run at once when the config does not say.
+   *
+   * @param parallelism the number of checks, such as the number of workers Gradle may use
+   */
+  public void setDefaultParallelism(int parallelism) {
+    this.defaultParallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Get how many checks may run at once: the parallelism given in the config,
+   * or else the default, which is the number of processors unless set.
+   *
+   * @return the number of checks
+   */
+  public int getParallelism() {
+    return parallelism > 0 ? parallelism : defaultParallelism;
+  }
+
+  public GatorGraderCommand.Mode getGatorGraderMode() {
+    return gatorgraderMode;
+  }
+
   public String getAssignmentName() {
     return assignmentName;
   }
@@ -285,6 +505,27 @@ public class GatorGradleConfig implements Iterable<Command> {
     return startupCommand;
   }
 
+  /**
+   * Get the executables the config allows that its checks actually run, pure
+   * checks included. Only the header has to be parsed.
+   *
+   * @return the executables, in no particular order
+   */
+  public Set<String> getInvokedExecutables() {
+    Set<String> executables = new HashSet<>();
+    for (String path : file.getPaths()) {
+      for (ConfigMap.Value val : file.getChecks(path)) {
+        String check = timeoutPattern.matcher(val.asString().trim()).replaceFirst("");
+        String[] splits = check.split("\\s+", 3);
+        String exec = pureIndicator.equals(splits[0]) && splits.length > 1 ? splits[1] : splits[0];
+        if (isCommandLineExecutable(exec)) {
+          executables.add(exec);
+        }
+      }
+    }
+    return executables;
+  }
+
   public boolean isCommandLineExecutable(String exec) {
     return commandLineExecutables.contains(exec);
   }
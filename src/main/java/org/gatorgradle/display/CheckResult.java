@@ -1,16 +1,16 @@
 package org.gatorgradle.display;
 
-import java.util.Locale;
-import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.gatorgradle.util.Console;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.util.Json;
 import org.gatorgradle.util.StringUtil;
 
-public class CheckResult {
+public class CheckResult implements Serializable {
+  private static final long serialVersionUID = 2718L;
+
   public static class MalformedJsonException extends Exception {
     public MalformedJsonException(String json) {
       super("Failed to parse json:\n---\n" + json + "\n---");
@@ -22,18 +22,12 @@ public class CheckResult {
     }
   }
 
-  public static final Pattern CHECK_REGEX =
-      Pattern.compile(".*\"check\":\\s*\"(.*?)\".*", Pattern.DOTALL);
-  public static final Pattern OUTCOME_REGEX =
-      Pattern.compile(".*\"outcome\":\\s*([Tt]rue|[Ff]alse).*", Pattern.DOTALL);
-  public static final Pattern DIAGNOSTIC_REGEX =
-      Pattern.compile(".*\"diagnostic\":\\s*\"(.*?)\".*", Pattern.DOTALL);
-
   public static final String INDENT = "  ";
   public static final String CONTINUE_SYMBOL_RAW = "\u2503"; // vertical line (┃)
   public static final String PASS_SYMBOL_RAW = "\u2714"; // heavy check (✔)
   public static final String FAIL_SYMBOL_RAW = "\u2718"; // heavy cross (✘)
   public static final String FIX_SYMBOL_RAW = "\u2794"; // right arrow (➔)
+  public static final String TIMEOUT_SYMBOL_RAW = "\u29D6"; // hourglass (⧖)
 
   public static final String PASS_SYMBOL =
       StringUtil.color(StringUtil.GOOD, PASS_SYMBOL_RAW);
@@ -41,10 +35,22 @@ public class CheckResult {
       StringUtil.color(StringUtil.BAD, FAIL_SYMBOL_RAW);
   public static final String FIX_SYMBOL =
       StringUtil.color("\u001B[1;33m", FIX_SYMBOL_RAW);
+  public static final String TIMEOUT_SYMBOL =
+      StringUtil.color(StringUtil.BAD, TIMEOUT_SYMBOL_RAW);
+
+  private static final String CHECK_KEY = "check";
+  private static final String OUTCOME_KEY = "outcome";
+  private static final String DIAGNOSTIC_KEY = "diagnostic";
 
   public String check;
   public Boolean outcome;
   public String diagnostic;
+  public boolean timedOut;
+
+  // what was run to get this result, filled in once the command completes
+  public String command;
+  public int exitValue;
+  public long duration = -1;
 
   /**
    * Construct a CheckResult.
@@ -59,47 +65,90 @@ public class CheckResult {
     this.diagnostic = diagnostic;
   }
 
+  /**
+   * Construct a CheckResult for a check that was killed for taking too long.
+   *
+   * @param  check   the check that timed out
+   * @param  seconds how long the check was allowed to take
+   * @return         the result
+   */
+  public static CheckResult timedOut(String check, double seconds) {
+    CheckResult result = new CheckResult(check, false,
+        "The check did not finish within " + seconds + " seconds");
+    result.timedOut = true;
+    return result;
+  }
+
+  /**
+   * Record the command this result came from.
+   *
+   * @param  cmd the command that produced this result
+   * @return     this result
+   */
+  public CheckResult from(BasicCommand cmd) {
+    this.command = cmd.toString();
+    this.exitValue = cmd.exitValue();
+    this.duration = cmd.getDuration();
+    return this;
+  }
+
   /**
    * Parses the given JSON string, setting check, outcome,
    * and diagnostic member variables when found accordingly.
    *
    * <p>This method assumes the json passed represents only one
-   * result, and any duplicates will overwrite values.
+   * result; if there are more, the first is used. Text around the
+   * result that is not one, such as log output, is ignored.
    *
    * @param json the json to parse
-   * @throws MalformedJsonException if the json given is not valid for a CheckResult
+   * @throws MalformedJsonException if the json given does not hold a CheckResult
    *
    */
   public CheckResult(String json) throws MalformedJsonException {
-    if (json == null) {
-      throw new MalformedJsonException("Null JSON text", null);
-    }
-    // handle escaped quotes by replacing them with '
-    json = json.replaceAll("\\\\\"", "'").trim();
-
-    Matcher matcher = CHECK_REGEX.matcher(json);
-    if (!matcher.matches()) {
-      throw new MalformedJsonException("Could not find 'check' key in", json);
-    }
-    this.check = matcher.group(1);
+    this(first(json));
+  }
 
+  private CheckResult(Object[] fields) {
+    this((String) fields[0], (Boolean) fields[1], (String) fields[2]);
+  }
 
-    matcher.usePattern(OUTCOME_REGEX);
-    matcher.reset();
-    if (!matcher.matches()) {
-      throw new MalformedJsonException("Could not find 'outcome' key in", json);
+  private static Object[] first(String json) throws MalformedJsonException {
+    List<Object[]> objects = objects(json);
+    if (objects.isEmpty()) {
+      throw new MalformedJsonException("Could not find a result in", json);
     }
-    this.outcome = Boolean.parseBoolean(matcher.group(1));
-
+    return objects.get(0);
+  }
 
-    matcher.usePattern(DIAGNOSTIC_REGEX);
-    matcher.reset();
-    if (!matcher.matches()) {
-      throw new MalformedJsonException("Could not find 'diagnostic' key in", json);
+  /**
+   * Parses every result in the given JSON text, which may hold several result
+   * objects, one after the other or in an array.
+   *
+   * @param  json the json to parse
+   * @return      the results, in the order they appear, which may be none
+   * @throws MalformedJsonException if the json given is null
+   */
+  public static List<CheckResult> parseAll(String json) throws MalformedJsonException {
+    List<Object[]> objects = objects(json);
+    List<CheckResult> results = new ArrayList<>(objects.size());
+    for (Object[] fields : objects) {
+      results.add(new CheckResult(fields));
     }
-    this.diagnostic = matcher.group(1);
+    return results;
   }
 
+  /**
+   * Find the objects in the given text that have every field of a result.
+   */
+  private static List<Object[]> objects(String json) throws MalformedJsonException {
+    if (json == null) {
+      throw new MalformedJsonException("Null JSON text", null);
+    }
+    List<Object[]> objects = Json.readObjects(json, CHECK_KEY, OUTCOME_KEY, DIAGNOSTIC_KEY);
+    objects.removeIf(fields -> !(fields[0] instanceof String && fields[1] instanceof Boolean
+        && fields[2] instanceof String));
+    return objects;
+  }
 
   /**
    * Returns a string representation of this result.
@@ -111,7 +160,8 @@ public class CheckResult {
     if (outcome) {
       return PASS_SYMBOL + INDENT + check;
     } else {
-      String output = FAIL_SYMBOL + INDENT + check;
+      String output = (timedOut ? TIMEOUT_SYMBOL : FAIL_SYMBOL) + INDENT + check
+          + (timedOut ? " (TIMEOUT)" : "");
       if (includeDiagnostic) {
         output += "\n " + INDENT + FIX_SYMBOL + INDENT + StringUtil.color(StringUtil.FIX,
             diagnostic.trim().replaceAll("\\n", "\n")
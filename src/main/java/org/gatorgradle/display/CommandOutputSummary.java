@@ -3,7 +3,13 @@ package org.gatorgradle.display;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -12,6 +18,7 @@ import org.gatorgradle.command.BasicCommand;
 import org.gatorgradle.command.Command;
 import org.gatorgradle.command.GatorGraderCommand;
 import org.gatorgradle.config.GatorGradleConfig;
+import org.gatorgradle.internal.FlightEvents;
 import org.gatorgradle.task.GatorGradleTask;
 import org.gatorgradle.util.StringUtil;
 
@@ -23,66 +30,112 @@ public class CommandOutputSummary {
   private static final String YES = StringUtil.color(StringUtil.GOOD, "Yes");
   private static final String NO = StringUtil.color(StringUtil.BAD, "No");
 
-  private List<Command> completedCommands;
+  private final Set<Command> completedCommands = ConcurrentHashMap.newKeySet();
+  private final Queue<CheckResult> results = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger numCompleted = new AtomicInteger();
   private final Logger log;
+  private final GatorGradleConfig config;
+  private JsonLinesReport stream;
+  private boolean showResults = true;
 
-  public CommandOutputSummary(Logger log) {
-    this.completedCommands = new ArrayList<>();
+  public CommandOutputSummary(Logger log, GatorGradleConfig config) {
     this.log = log;
+    this.config = config;
   }
 
-  public CommandOutputSummary(List<Command> completedCommands, Logger log) {
-    this.completedCommands = new ArrayList<>(completedCommands);
-    this.log = log;
+  /**
+   * Summarize the given commands, which have already completed.
+   *
+   * @param completedCommands the commands
+   * @param log               where to show their results
+   * @param config            the config they were run with
+   */
+  public CommandOutputSummary(List<Command> completedCommands, Logger log,
+      GatorGradleConfig config) {
+    this(log, config);
+    completedCommands.forEach(this::addCompletedCommand);
   }
 
   /**
-   * Add the command to the summary.
+   * Stream every result added from now on to the given report.
    *
-   * @param cmd the command to add
+   * @param  report the report to write results to
+   * @return        this summary
    */
-  public void addCompletedCommand(Command cmd) {
-    if (!completedCommands.contains(cmd)) {
-      completedCommands.add(cmd);
-      showInProgressSummary(cmd);
-    } else {
+  public CommandOutputSummary streamTo(JsonLinesReport report) {
+    this.stream = report;
+    return this;
+  }
+
+  /**
+   * Set whether the result of every check is shown as it completes. Failing
+   * checks still break the build early if the config says so.
+   *
+   * @param  show should results be shown
+   * @return      this summary
+   */
+  public CommandOutputSummary showResults(boolean show) {
+    this.showResults = show;
+    return this;
+  }
+
+  /**
+   * Add the command to the summary. Safe to call from many threads at once; the
+   * command's output is parsed here, on the calling thread, and never again.
+   *
+   * @param  cmd the command to add
+   * @return     the number of commands completed so far
+   */
+  public int addCompletedCommand(Command cmd) {
+    if (!completedCommands.add(cmd)) {
       log.info("Duplicate command: " + cmd.toString());
+      return numCompleted.get();
     }
+    CheckResult result = cmd instanceof BasicCommand
+        ? parseCommandResult((BasicCommand) cmd) : null;
+    if (result != null) {
+      result.from((BasicCommand) cmd);
+      results.add(result);
+      if (stream != null) {
+        stream.write(result);
+      }
+    }
+    int completed = numCompleted.incrementAndGet();
+    showInProgressSummary(cmd, result);
+    return completed;
   }
 
   public int getNumCompletedTasks() {
-    return completedCommands.size();
+    return numCompleted.get();
   }
 
-  boolean nomore = false;
+  private final AtomicBoolean nomore = new AtomicBoolean();
 
   /**
    * Output a description of what just finished, or maybe a status.
    *
-   * @param cmd the command that just finished
+   * @param cmd    the command that just finished
+   * @param result the parsed result of the command, if it has one
    */
-  public void showInProgressSummary(Command cmd) {
-    if (nomore) {
+  public void showInProgressSummary(Command cmd, CheckResult result) {
+    if (nomore.get()) {
       return;
     }
-    boolean fail = printCommandResult(cmd, false);
-    if (fail && GatorGradleConfig.get().shouldFastBreakBuild()) {
+    boolean fail = printCommandResult(cmd, result);
+    if (fail && config.shouldFastBreakBuild()
+        && nomore.compareAndSet(false, true)) {
       log.lifecycle("\n  -~-  \u001B[1;31mCHECKS FAILED\u001B[0m  -~-\n");
-      nomore = true;
       throw new GradleException("Check failed!");
     }
   }
 
-  private boolean printCommandResult(Command cmd, boolean includeDiagnostic) {
+  private boolean printCommandResult(Command cmd, CheckResult result) {
     // debug output for TAs
-    log.info("COMMAND: {}", cmd.toString());
-    log.info("EXIT VALUE: {}", cmd.exitValue());
-    log.info("OUTPUT:");
+    log.info("COMMAND: {}\nEXIT VALUE: {}", cmd.toString(), cmd.exitValue());
 
     // actual output of the command should be parsed and colored, etc
-    if (cmd instanceof BasicCommand) {
-      String output = parseCommandOutput((BasicCommand) cmd, includeDiagnostic);
-      log.lifecycle(output);
+    if (result != null && showResults) {
+      log.lifecycle(result.textReport(false));
     }
     if (cmd.exitValue() != Command.SUCCESS) {
       log.info("Check failed!");
@@ -93,38 +146,16 @@ public class CommandOutputSummary {
   }
 
   /**
-   * Output the compiled summary to the project's Logger.
+   * Compile the results of every completed command, with diagnostics, into a report.
+   *
+   * @return the report
    */
-  public void showOutputSummary() {
-    // log.lifecycle("\n\n  -~-  \u001B[1;36mBeginning check summary\u001B[1;0m  -~-\n\n");
-    int totalChecks = completedCommands.size();
-    List<Command> failed = completedCommands.stream()
-                               .filter(cmd -> cmd.exitValue() != Command.SUCCESS)
-                               .collect(Collectors.toList());
-    boolean failedChecks = failed.size() > 0;
-
-    if (failedChecks) {
-      log.lifecycle("\n\n\u001B[1;33m-~-  \u001B[1;31mFAILURES  \u001B[1;33m-~-\u001B[0m\n");
-      for (int i = 0; i < failed.size(); i++) {
-        printCommandResult(failed.get(i), true);
-      }
-    }
-
-    int passedChecks = completedCommands.size() - failed.size();
-
-    StringUtil.border("Passed " + passedChecks + "/" + totalChecks + " ("
-            + (Math.round((passedChecks * 100) / (float) totalChecks)) + "%)"
-            + " of checks for " + GatorGradleConfig.get().getAssignmentName() + "!",
-        failedChecks ? "\u001B[1;31m" : "\u001B[1;32m",
-        failedChecks ? "\u001B[1;35m" : "\u001B[1;32m", log);
-
-    if (failedChecks && GatorGradleConfig.get().shouldBreakBuild()) {
-      throw new GradleException(
-          StringUtil.color(StringUtil.BAD, "Grading checks failed -- scroll up for failures"));
-    }
+  public GradeReport toReport() {
+    return new GradeReport(config.getAssignmentName(), config.shouldBreakBuild(),
+        new ArrayList<>(results), config.getSlowestShown());
   }
 
-  private CheckResult parseGatorGraderCommand(GatorGraderCommand cmd, boolean includeDiagnostic) {
+  private CheckResult parseGatorGraderCommand(GatorGraderCommand cmd) {
     CheckResult result = null;
     String output = cmd.getOutput();
     try {
@@ -143,11 +174,7 @@ public class CommandOutputSummary {
             "The " + unrec + " check is not supported"
         );
       } else {
-        // only log unknown error when not requesting diagnostic
-        // generally the diagnostic request is a second or third print
-        if (!includeDiagnostic) {
-          log.error(cmd.toString() + " errored: \'" + ex.getMessage() + "\'");
-        }
+        log.error(cmd.toString() + " errored: \'" + ex.getMessage() + "\'");
         result = new CheckResult(
             "Unknown GatorGrader check",
             false,
@@ -155,13 +182,15 @@ public class CommandOutputSummary {
         );
       }
     }
+    // the output itself is never capped, see GatorGraderCommand.capsOutput
+    result.diagnostic = StringUtil.truncateMiddle(result.diagnostic, cmd.getOutputLimit());
     return result;
   }
 
-  private CheckResult parseCommandLineExecutable(BasicCommand cmd, boolean includeDiagnostic) {
+  private CheckResult parseCommandLineExecutable(BasicCommand cmd) {
     String output = cmd.getOutput();
     StringBuilder diagnostic = new StringBuilder();
-    if (includeDiagnostic && output != null && !output.trim().isEmpty()) {
+    if (output != null && !output.trim().isEmpty()) {
       Scanner scan = new Scanner(output);
       diagnostic.append(cmd.executable() + " diagnostics:\n");
       while (scan.hasNext()) {
@@ -180,10 +209,10 @@ public class CommandOutputSummary {
     );
   }
 
-  private CheckResult parsePureCommandOutput(BasicCommand cmd, boolean includeDiagnostic) {
+  private CheckResult parsePureCommandOutput(BasicCommand cmd) {
     String output = cmd.getOutput();
     StringBuilder diagnostic = new StringBuilder();
-    if (includeDiagnostic && output != null && !output.trim().isEmpty()) {
+    if (output != null && !output.trim().isEmpty()) {
       Scanner scan = new Scanner(output);
       diagnostic.append(cmd + " printed:\n");
       while (scan.hasNext()) {
@@ -202,16 +231,29 @@ public class CommandOutputSummary {
     );
   }
 
-  private String parseCommandOutput(BasicCommand cmd, boolean includeDiagnostic) {
+  private CheckResult parseCommandResult(BasicCommand cmd) {
+    try (FlightEvents.Scope event = FlightEvents.resultParse(cmd)) {
+      CheckResult result = parseCommandResultUnrecorded(cmd);
+      String output = cmd.getOutput();
+      event.withOutputSize(output == null ? 0 : output.length()).withOutcome(result.outcome);
+      return result;
+    }
+  }
+
+  private CheckResult parseCommandResultUnrecorded(BasicCommand cmd) {
     CheckResult result = null;
-    if (cmd instanceof GatorGraderCommand) {
-      result = parseGatorGraderCommand((GatorGraderCommand) cmd, includeDiagnostic);
-    } else if (GatorGradleConfig.get().isCommandLineExecutable(cmd.executable())) {
-      result = parseCommandLineExecutable(cmd, includeDiagnostic);
+    if (cmd.timedOut()) {
+      String check = cmd instanceof GatorGraderCommand
+          ? String.join(" ", ((GatorGraderCommand) cmd).checkArguments()) : cmd.toString();
+      result = CheckResult.timedOut(check, cmd.getTimeout() / 1000.0);
+    } else if (cmd instanceof GatorGraderCommand) {
+      result = parseGatorGraderCommand((GatorGraderCommand) cmd);
+    } else if (config.isCommandLineExecutable(cmd.executable())) {
+      result = parseCommandLineExecutable(cmd);
     } else {
-      result = parsePureCommandOutput(cmd, includeDiagnostic);
+      result = parsePureCommandOutput(cmd);
     }
 
-    return result.textReport(includeDiagnostic);
+    return result;
   }
 }
@@ -0,0 +1,176 @@
+package org.gatorgradle.display;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.gatorgradle.internal.FlightEvents;
+import org.gatorgradle.util.Json;
+import org.gatorgradle.util.StringUtil;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.logging.Logger;
+
+/**
+ * GradeReport holds the results of a finished grading run, so the final
+ * summary can be shown again without re-running any checks. Reports are kept
+ * as JSON, each result in the same form as a line of the JsonLinesReport, so
+ * they stay readable across plugin versions and by other tools.
+ */
+public class GradeReport {
+  private static final String ASSIGNMENT_KEY = "assignment";
+  private static final String BREAK_KEY = "breakBuild";
+  private static final String SLOWEST_KEY = "slowestShown";
+  private static final String RESULTS_KEY = "results";
+
+  private final String assignmentName;
+  private final boolean breakBuild;
+  private final List<CheckResult> results;
+  private final int slowestShown;
+
+  /**
+   * Create a report.
+   *
+   * @param assignmentName the name of the graded assignment
+   * @param breakBuild     should showing this report fail the build if checks failed
+   * @param results        the results of every check, with diagnostics
+   */
+  public GradeReport(String assignmentName, boolean breakBuild, List<CheckResult> results) {
+    this(assignmentName, breakBuild, results, 0);
+  }
+
+  /**
+   * Create a report that also lists the slowest checks.
+   *
+   * @param assignmentName the name of the graded assignment
+   * @param breakBuild     should showing this report fail the build if checks failed
+   * @param results        the results of every check, with diagnostics
+   * @param slowestShown   how many of the slowest checks to list
+   */
+  public GradeReport(String assignmentName, boolean breakBuild, List<CheckResult> results,
+      int slowestShown) {
+    this.assignmentName = assignmentName;
+    this.breakBuild = breakBuild;
+    this.results = new ArrayList<>(results);
+    this.slowestShown = slowestShown;
+  }
+
+  public String getAssignmentName() {
+    return assignmentName;
+  }
+
+  public List<CheckResult> getResults() {
+    return results;
+  }
+
+  /**
+   * Write this report to the given file.
+   *
+   * @param  file the file to write to
+   * @throws IOException if the file could not be written
+   */
+  public void write(File file) throws IOException {
+    StringBuilder json = new StringBuilder();
+    json.append("{\"").append(ASSIGNMENT_KEY).append("\": ").append(Json.quote(assignmentName))
+        .append(", \"").append(BREAK_KEY).append("\": ").append(breakBuild)
+        .append(", \"").append(SLOWEST_KEY).append("\": ").append(slowestShown)
+        .append(", \"").append(RESULTS_KEY).append("\": [");
+    for (int i = 0; i < results.size(); i++) {
+      json.append(i > 0 ? ",\n" : "\n").append(JsonLinesReport.toJson(results.get(i)));
+    }
+    json.append("\n]}\n");
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read a report previously written with {@link #write(File)}.
+   *
+   * @param  file the file to read
+   * @return      the report
+   * @throws IOException if the file could not be read or does not hold a report
+   */
+  @SuppressWarnings("unchecked")
+  public static GradeReport read(File file) throws IOException {
+    String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    try {
+      Map<String, Object> obj = Json.parseObject(text);
+      List<CheckResult> results = new ArrayList<>();
+      for (Object result : (List<Object>) obj.get(RESULTS_KEY)) {
+        results.add(JsonLinesReport.fromJson((Map<String, Object>) result));
+      }
+      return new GradeReport((String) obj.get(ASSIGNMENT_KEY), (Boolean) obj.get(BREAK_KEY),
+          results, ((Number) obj.get(SLOWEST_KEY)).intValue());
+    } catch (IllegalArgumentException | ClassCastException | NullPointerException ex) {
+      throw new IOException("Not a grading report: " + file, ex);
+    }
+  }
+
+  /**
+   * Output the failures and the overall outcome to the given Logger.
+   *
+   * @param log the logger to output to
+   */
+  public void show(Logger log) {
+    try (FlightEvents.Scope event = FlightEvents.summaryRender(assignmentName)) {
+      event.withCount(results.size());
+      showResults(log);
+    }
+  }
+
+  private void showResults(Logger log) {
+    int totalChecks = results.size();
+    List<CheckResult> failed =
+        results.stream().filter(result -> !result.outcome).collect(Collectors.toList());
+    boolean failedChecks = failed.size() > 0;
+
+    if (failedChecks) {
+      log.lifecycle("\n\n\u001B[1;33m-~-  \u001B[1;31mFAILURES  \u001B[1;33m-~-\u001B[0m\n");
+      for (CheckResult result : failed) {
+        log.lifecycle(result.textReport(true));
+      }
+    }
+
+    int passedChecks = totalChecks - failed.size();
+
+    StringUtil.border("Passed " + passedChecks + "/" + totalChecks + " ("
+            + (Math.round((passedChecks * 100) / (float) totalChecks)) + "%)"
+            + " of checks for " + assignmentName + "!",
+        failedChecks ? "\u001B[1;31m" : "\u001B[1;32m",
+        failedChecks ? "\u001B[1;35m" : "\u001B[1;32m", log);
+
+    if (slowestShown > 0) {
+      showSlowest(log);
+    }
+
+    if (failedChecks && breakBuild) {
+      throw new GradleException(
+          StringUtil.color(StringUtil.BAD, "Grading checks failed -- scroll up for failures"));
+    }
+  }
+
+  private void showSlowest(Logger log) {
+    List<CheckResult> slowest = results.stream()
+        .filter(result -> result.duration >= 0)
+        .sorted(Comparator.comparingLong((CheckResult result) -> result.duration).reversed())
+        .limit(slowestShown)
+        .collect(Collectors.toList());
+    if (slowest.isEmpty()) {
+      log.lifecycle("\nNo checks ran, every result was reused from the cache\n");
+      return;
+    }
+    log.lifecycle("\n\u001B[1;33m-~-  \u001B[1;36mSLOWEST CHECKS  \u001B[1;33m-~-\u001B[0m\n");
+    for (CheckResult result : slowest) {
+      log.lifecycle(String.format(Locale.ROOT, "%9.2fs  %s", result.duration / 1000.0,
+          result.check));
+    }
+    log.lifecycle("");
+  }
+}
@@ -0,0 +1,104 @@
+package org.gatorgradle.display;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * JUnitReport writes the results of a grading run in the JUnit XML format,
+ * which most CI servers and dashboards already know how to show.
+ */
+public class JUnitReport {
+  private final GradeReport report;
+
+  public JUnitReport(GradeReport report) {
+    this.report = report;
+  }
+
+  /**
+   * Write the report to the given file.
+   *
+   * @param  file the file to write to
+   * @throws IOException if the file could not be written
+   */
+  public void write(File file) throws IOException {
+    List<CheckResult> results = report.getResults();
+    long failures = results.stream().filter(result -> !result.outcome).count();
+    long totalDuration = results.stream().mapToLong(result -> Math.max(0, result.duration)).sum();
+
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+      XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+      xml.writeStartDocument("UTF-8", "1.0");
+      xml.writeStartElement("testsuite");
+      xml.writeAttribute("name", clean(report.getAssignmentName()));
+      xml.writeAttribute("tests", Integer.toString(results.size()));
+      xml.writeAttribute("failures", Long.toString(failures));
+      xml.writeAttribute("errors", "0");
+      xml.writeAttribute("time", seconds(totalDuration));
+
+      for (CheckResult result : results) {
+        xml.writeStartElement("testcase");
+        xml.writeAttribute("classname", clean(report.getAssignmentName()));
+        xml.writeAttribute("name", clean(result.check));
+        xml.writeAttribute("time", seconds(Math.max(0, result.duration)));
+        if (!result.outcome) {
+          xml.writeStartElement("failure");
+          xml.writeAttribute("type", result.timedOut ? "timeout" : "failure");
+          xml.writeAttribute("message", clean(firstLine(result.diagnostic)));
+          xml.writeCharacters(clean(result.diagnostic));
+          xml.writeEndElement();
+        }
+        if (result.command != null) {
+          xml.writeStartElement("system-out");
+          xml.writeCharacters(clean(result.command + " exited with " + result.exitValue));
+          xml.writeEndElement();
+        }
+        xml.writeEndElement();
+      }
+
+      xml.writeEndElement();
+      xml.writeEndDocument();
+      xml.close();
+    } catch (XMLStreamException ex) {
+      throw new IOException("Failed to write JUnit report " + file, ex);
+    }
+  }
+
+  private static String seconds(long millis) {
+    return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+  }
+
+  private static String firstLine(String str) {
+    if (str == null) {
+      return "";
+    }
+    int newline = str.indexOf('\n');
+    return newline < 0 ? str : str.substring(0, newline);
+  }
+
+  /**
+   * Remove characters that may not appear in XML at all, such as most control
+   * characters, which checks can print.
+   */
+  private static String clean(String str) {
+    if (str == null) {
+      return "";
+    }
+    StringBuilder builder = new StringBuilder(str.length());
+    for (int i = 0; i < str.length(); i++) {
+      char chr = str.charAt(i);
+      if (chr >= 0x20 || chr == '\t' || chr == '\n' || chr == '\r') {
+        builder.append(chr);
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,93 @@
+package org.gatorgradle.display;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.gatorgradle.util.Console;
+import org.gatorgradle.util.Json;
+
+/**
+ * JsonLinesReport streams every check result to a file as soon as the check
+ * completes, one JSON object per line, so tools can follow a grading run
+ * without scraping the console.
+ */
+public class JsonLinesReport implements Closeable {
+  private final File file;
+  private final BufferedWriter out;
+
+  /**
+   * Start a report in the given file, replacing anything already in it.
+   *
+   * @param  file the file to write to
+   * @throws IOException if the file could not be created
+   */
+  public JsonLinesReport(File file) throws IOException {
+    this.file = file;
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    this.out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Append the given result to the report.
+   *
+   * @param result the result to append
+   */
+  public synchronized void write(CheckResult result) {
+    try {
+      out.write(toJson(result));
+      out.newLine();
+      // readers following the file should see each result as it completes
+      out.flush();
+    } catch (IOException ex) {
+      Console.error("Failed to write to " + file + ": " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Convert the given result to a single line of JSON.
+   *
+   * @param  result the result to convert
+   * @return        the JSON object
+   */
+  public static String toJson(CheckResult result) {
+    return "{\"command\": " + quote(result.command)
+        + ", \"check\": " + quote(result.check)
+        + ", \"outcome\": " + result.outcome
+        + ", \"timedOut\": " + result.timedOut
+        + ", \"diagnostic\": " + quote(result.diagnostic)
+        + ", \"exitValue\": " + result.exitValue
+        + ", \"duration\": " + result.duration + "}";
+  }
+
+  /**
+   * Convert an object written by {@link #toJson(CheckResult)} back to a result.
+   *
+   * @param  obj the parsed JSON object
+   * @return     the result
+   * @throws ClassCastException   if a value has the wrong type
+   * @throws NullPointerException if a number is missing
+   */
+  public static CheckResult fromJson(Map<String, Object> obj) {
+    CheckResult result = new CheckResult((String) obj.get("check"),
+        (Boolean) obj.get("outcome"), (String) obj.get("diagnostic"));
+    result.command = (String) obj.get("command");
+    result.timedOut = Boolean.TRUE.equals(obj.get("timedOut"));
+    result.exitValue = ((Number) obj.get("exitValue")).intValue();
+    result.duration = ((Number) obj.get("duration")).longValue();
+    return result;
+  }
+
+  private static String quote(String str) {
+    return str == null ? "null" : Json.quote(str);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    out.close();
+  }
+}
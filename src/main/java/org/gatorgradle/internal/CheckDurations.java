@@ -0,0 +1,102 @@
+package org.gatorgradle.internal;
+
+import java.nio.file.Path;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.command.GatorGraderCommand;
+import org.gatorgradle.config.GatorGradleConfig;
+import org.gatorgradle.util.HashUtil;
+
+/**
+ * Remembers how long each check took in earlier runs, so the longest checks
+ * can be started first and do not stretch the total run time by starting last.
+ *
+ * <p>Checks without any history are estimated from their type: pure commands
+ * tend to be the slowest, followed by checks over the commit history,
+ * command line executables, and then all other GatorGrader checks.
+ */
+public class CheckDurations {
+  private static final long PURE_ESTIMATE = 10_000;
+  private static final long COMMITS_ESTIMATE = 3_000;
+  private static final long EXECUTABLE_ESTIMATE = 2_000;
+  private static final long GATORGRADER_ESTIMATE = 1_000;
+
+  private static final String COMMITS_FLAG = "--commits";
+
+  private final Stamp stamp;
+  private final GatorGradleConfig config;
+
+  /**
+   * Load the durations recorded in the given file.
+   *
+   * @param file   the file durations are kept in
+   * @param config the configuration the checks came from
+   */
+  public CheckDurations(Path file, GatorGradleConfig config) {
+    this.stamp = Stamp.load(file);
+    this.config = config;
+  }
+
+  /**
+   * Get how long the given command is expected to take.
+   *
+   * @param  cmd the command
+   * @return     the expected duration in milliseconds
+   */
+  public synchronized long expected(Command cmd) {
+    return expected(cmd, key(cmd));
+  }
+
+  private long expected(Command cmd, String key) {
+    String recorded = stamp.get(key);
+    if (recorded != null) {
+      try {
+        return Long.parseLong(recorded);
+      } catch (NumberFormatException ex) {
+        // fall back to an estimate
+      }
+    }
+    return estimate(cmd);
+  }
+
+  private long estimate(Command cmd) {
+    if (cmd instanceof GatorGraderCommand) {
+      boolean commits = ((GatorGraderCommand) cmd).checkArguments().contains(COMMITS_FLAG);
+      return commits ? COMMITS_ESTIMATE : GATORGRADER_ESTIMATE;
+    } else if (cmd instanceof BasicCommand
+        && config.isCommandLineExecutable(((BasicCommand) cmd).executable())) {
+      return EXECUTABLE_ESTIMATE;
+    }
+    return PURE_ESTIMATE;
+  }
+
+  /**
+   * Record how long the given command took, if it actually ran. Recorded
+   * durations are smoothed, so a single slow run does not reorder everything.
+   *
+   * @param cmd the command that finished
+   */
+  public synchronized void record(Command cmd) {
+    if (!(cmd instanceof BasicCommand) || ((BasicCommand) cmd).getDuration() < 0) {
+      return;
+    }
+    long duration = ((BasicCommand) cmd).getDuration();
+    String key = key(cmd);
+    if (stamp.get(key) != null) {
+      duration = (duration + expected(cmd, key)) / 2;
+    }
+    stamp.put(key, Long.toString(duration));
+  }
+
+  /**
+   * Write the recorded durations back to their file.
+   */
+  public synchronized void save() {
+    stamp.save();
+  }
+
+  private static String key(Command cmd) {
+    return HashUtil.sha256(cmd.getWorkingDir() + "\n" + cmd).substring(0, 16);
+  }
+}
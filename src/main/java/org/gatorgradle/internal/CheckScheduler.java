@@ -0,0 +1,78 @@
+package org.gatorgradle.internal;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs grading checks on a fixed number of threads, which bounds how many
+ * check processes are in flight at once. Grading tasks size it to Gradle's
+ * worker count unless the config gives a parallelism of its own.
+ *
+ * <p>Checks are not run as Gradle work items: the plugin supports Gradle
+ * versions without build services to bound them by, and a work item only gets
+ * an isolated copy of its parameters, while a check has to report back to its
+ * grading run as it completes and be cancelled along with it.
+ */
+public class CheckScheduler implements AutoCloseable {
+  private final ExecutorService pool;
+  private final int parallelism;
+
+  /**
+   * Create a scheduler running at most the given number of checks at once.
+   *
+   * @param parallelism the number of checks to run concurrently
+   */
+  public CheckScheduler(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1, not " + parallelism);
+    }
+    this.parallelism = parallelism;
+    AtomicInteger count = new AtomicInteger();
+    ThreadFactory factory = runnable -> {
+      Thread thread = new Thread(runnable, "gatorgradle-check-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+    this.pool = Executors.newFixedThreadPool(parallelism, factory);
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Queue a check to run once one of the scheduler's threads is free.
+   *
+   * @param check the check to run
+   */
+  public void submit(Runnable check) {
+    pool.execute(check);
+  }
+
+  /**
+   * Drop every check that has not started yet and interrupt the threads running
+   * the others. Running checks still have to be cancelled themselves.
+   */
+  public void cancel() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Stop accepting checks and wait for those already queued to finish.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+    try {
+      while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+        // wait for the remaining checks
+      }
+    } catch (InterruptedException ex) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
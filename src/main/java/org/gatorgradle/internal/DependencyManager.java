@@ -3,16 +3,28 @@ package org.gatorgradle.internal;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
 
 import org.gatorgradle.GatorGradlePlugin;
 import org.gatorgradle.command.BasicCommand;
 import org.gatorgradle.command.Command;
-import org.gatorgradle.config.GatorGradleConfig;
 import org.gatorgradle.util.Console;
+import org.gatorgradle.util.GitUtil;
+import org.gatorgradle.util.HashUtil;
 
 import org.gradle.api.GradleException;
 
@@ -30,55 +42,202 @@ public class DependencyManager {
       "https://github.com/GatorEducator/gatorgrader.git";
   private static String PYTHON_EXECUTABLE = null;
 
+  // records which executables on the PATH have already been probed successfully
+  private static final String TOOLCHAIN_FILE = "toolchain.properties";
+  private static Stamp toolchainStamp;
+
+  // records what the GatorGrader installation was last brought up to date with
+  private static final String STAMP_FILE = ".gatorgradle-stamp";
+  private static final String STAMP_REVISION = "revision";
+  private static final String STAMP_COMMIT = "commit";
+  private static final String STAMP_LOCK = "pipfile.lock";
+
+  // records where pipenv put the virtualenv GatorGrader runs in
+  private static final String PYTHON_STAMP_FILE = ".gatorgradle-python";
+  private static final String PYTHON_PATH = "python";
+  private static final String PYTHON_VENV = "venv";
+  private static final String PYTHON_VENV_MODIFIED = "venv.modified";
+
   /**
-   * Returns the python executable path.
+   * Returns the python executable path. Unless given as GATORGRADER_PYTHON, the
+   * path is remembered next to the GatorGrader installation, so 'pipenv --venv'
+   * only has to run again once the virtualenv or Pipfile.lock changes.
    *
    * @return the path
    */
-  public static String getPython() {
+  public static synchronized String getPython() {
+    if (GatorGradlePlugin.GATORGRADER_PYTHON != null) {
+      return GatorGradlePlugin.GATORGRADER_PYTHON;
+    }
     if (PYTHON_EXECUTABLE == null) {
+      Path home = Paths.get(GatorGradlePlugin.GATORGRADER_HOME);
+      Stamp stamp = Stamp.load(home.resolve(PYTHON_STAMP_FILE));
+      String python = stamp.get(PYTHON_PATH);
+      String venv = stamp.get(PYTHON_VENV);
+      if (python != null && venv != null && Files.isRegularFile(Paths.get(python))
+          && stamp.matches(PYTHON_VENV_MODIFIED, lastModified(Paths.get(venv)))
+          && stamp.matches(STAMP_LOCK, lockHash(home))) {
+        PYTHON_EXECUTABLE = python;
+        return PYTHON_EXECUTABLE;
+      }
+
       BasicCommand query = new BasicCommand("pipenv", "--venv");
-      query.setWorkingDir(new File(GatorGradlePlugin.GATORGRADER_HOME));
+      query.setWorkingDir(home.toFile());
       query.outputToSysOut(false);
       query.run(true);
       if (query.exitValue() != 0) {
         error("Query for the Python executable failed! Try to reinstall GatorGrader", query);
         throw new GradleException("Failed to run 'pipenv --venv'! Was GatorGrader installed?");
       }
+      venv = query.getOutput().trim();
       if (GatorGradlePlugin.OS.equals(GatorGradlePlugin.WINDOWS)) {
-        PYTHON_EXECUTABLE = query.getOutput().trim() + GatorGradlePlugin.F_SEP + "Scripts"
-            + GatorGradlePlugin.F_SEP + "python";
+        PYTHON_EXECUTABLE = venv + GatorGradlePlugin.F_SEP + "Scripts"
+            + GatorGradlePlugin.F_SEP + "python.exe";
       } else {
-        PYTHON_EXECUTABLE = query.getOutput().trim() + GatorGradlePlugin.F_SEP + "bin"
+        PYTHON_EXECUTABLE = venv + GatorGradlePlugin.F_SEP + "bin"
             + GatorGradlePlugin.F_SEP + "python";
       }
+
+      stamp.clear();
+      stamp.put(PYTHON_PATH, PYTHON_EXECUTABLE)
+          .put(PYTHON_VENV, venv)
+          .put(PYTHON_VENV_MODIFIED, lastModified(Paths.get(venv)))
+          .put(STAMP_LOCK, lockHash(home))
+          .save();
     }
     return PYTHON_EXECUTABLE;
   }
 
+  /**
+   * Get the dependencies grading needs. A GatorGrader given through
+   * GATORGRADER_HOME is not managed, and neither are Python and Pipenv once
+   * GATORGRADER_PYTHON says which Python to use.
+   *
+   * @return the dependencies to update or install
+   */
+  public static List<Dependency> required() {
+    List<Dependency> deps = new ArrayList<>(Arrays.asList(Dependency.values()));
+    if (!GatorGradlePlugin.MANAGE_GATORGRADER) {
+      deps.remove(Dependency.GATORGRADER);
+    }
+    if (GatorGradlePlugin.GATORGRADER_PYTHON != null) {
+      deps.remove(Dependency.PYTHON);
+      deps.remove(Dependency.PIPENV);
+    }
+    return deps;
+  }
+
+  /**
+   * Install or update the given dependencies. The toolchain probes run
+   * concurrently; GatorGrader is handled once they have all finished, since
+   * installing it needs the tools they check for.
+   *
+   * @param  deps     the dependencies to update or install
+   * @param  revision the GatorGrader revision to check out
+   * @return          the dependencies that failed, in the order given
+   */
+  public static List<Dependency> installOrUpdate(Collection<Dependency> deps, String revision) {
+    // the probes mostly wait on processes, so they get threads of their own
+    // rather than tying up the common pool other build logic shares
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, deps.size()), runnable -> {
+      Thread thread = new Thread(runnable, "gatorgradle-probe");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<Dependency> failed = new ArrayList<>();
+    try {
+      Map<Dependency, CompletableFuture<Boolean>> probes = new LinkedHashMap<>();
+      for (Dependency dep : deps) {
+        if (dep != Dependency.GATORGRADER) {
+          probes.put(dep,
+              CompletableFuture.supplyAsync(() -> installOrUpdate(dep, revision), pool));
+        }
+      }
+      probes.forEach((dep, probe) -> {
+        if (!probe.join()) {
+          failed.add(dep);
+        }
+      });
+    } finally {
+      pool.shutdown();
+    }
+    if (failed.isEmpty() && deps.contains(Dependency.GATORGRADER)
+        && !installOrUpdate(Dependency.GATORGRADER, revision)) {
+      failed.add(Dependency.GATORGRADER);
+    }
+    return failed;
+  }
+
   /**
    * Install or Update the given dependency.
    *
-   * @param  dep the dependency to update or install
-   * @return     a boolean indicating success or failure
+   * @param  dep      the dependency to update or install
+   * @param  revision the GatorGrader revision to check out
+   * @return          a boolean indicating success or failure
    */
-  public static boolean installOrUpdate(Dependency dep) {
-    switch (dep) {
-      case GATORGRADER:
-        return doGatorGrader();
-      case PYTHON:
-        return doPython();
-      case PIPENV:
-        return doPipenv();
-      case GIT:
-        return doGit();
-      default:
-        Console.error("Unsupported Dependency: " + dep);
-        return false;
+  public static boolean installOrUpdate(Dependency dep, String revision) {
+    try (FlightEvents.Scope event = FlightEvents.dependency(dep.name())) {
+      boolean success;
+      switch (dep) {
+        case GATORGRADER:
+          success = doGatorGrader(revision);
+          break;
+        case PYTHON:
+          success = doPython();
+          break;
+        case PIPENV:
+          success = doPipenv();
+          break;
+        case GIT:
+          success = doGit();
+          break;
+        default:
+          Console.error("Unsupported Dependency: " + dep);
+          success = false;
+      }
+      event.withOutcome(success);
+      return success;
     }
   }
 
+  /**
+   * Run a probe for the given executable unless an earlier run already found the
+   * same executable on the PATH, unchanged since it was last probed successfully.
+   *
+   * @param  executable the name of the executable to find on the PATH
+   * @param  probe      the check to run if no earlier result applies
+   * @return            true if the executable is usable
+   */
+  private static boolean probe(String executable, BooleanSupplier probe) {
+    String fingerprint = Toolchain.fingerprint(executable);
+    Stamp stamp = toolchain();
+    synchronized (stamp) {
+      if (stamp.matches(executable, fingerprint)) {
+        return true;
+      }
+    }
+    boolean success = probe.getAsBoolean();
+    if (success && fingerprint != null) {
+      synchronized (stamp) {
+        stamp.put(executable, fingerprint).save();
+      }
+    }
+    return success;
+  }
+
+  private static synchronized Stamp toolchain() {
+    if (toolchainStamp == null) {
+      toolchainStamp =
+          Stamp.load(Paths.get(GatorGradlePlugin.GATORGRADLE_HOME, TOOLCHAIN_FILE));
+    }
+    return toolchainStamp;
+  }
+
   private static boolean doGit() {
+    return probe("git", DependencyManager::probeGit);
+  }
+
+  private static boolean probeGit() {
     BasicCommand cmd = new BasicCommand("git", "--version").outputToSysOut(false);
     cmd.run();
     if (cmd.exitValue() == Command.SUCCESS) {
@@ -100,6 +259,10 @@ public class DependencyManager {
   }
 
   private static boolean doPython() {
+    return probe("python3", DependencyManager::probePython);
+  }
+
+  private static boolean probePython() {
     BasicCommand cmd = new BasicCommand("python3", "-V").outputToSysOut(false);
     cmd.run();
     if (cmd.exitValue() == Command.SUCCESS && cmd.getOutput().contains(" 3.")) {
@@ -112,6 +275,10 @@ public class DependencyManager {
   }
 
   private static boolean doPipenv() {
+    return probe("pipenv", DependencyManager::probePipenv);
+  }
+
+  private static boolean probePipenv() {
     BasicCommand pipenv = new BasicCommand("pipenv", "--version").outputToSysOut(false);
     pipenv.run();
     if (pipenv.exitValue() == Command.SUCCESS) {
@@ -122,9 +289,14 @@ public class DependencyManager {
     return false;
   }
 
-  private static boolean doGatorGrader() {
-    boolean success = doGatorGraderMain();
-    if (!success) {
+  // grading tasks running in parallel share one installation, so only one may manage it at a time
+  private static synchronized boolean doGatorGrader(String revision) {
+    boolean installed =
+        GitUtil.gitDir(new File(GatorGradlePlugin.GATORGRADER_HOME)) != null;
+    boolean success = doGatorGraderMain(revision);
+    // only a failed clone leaves something unusable behind; an installation
+    // that could not be updated is kept, so grading still works offline
+    if (!success && !installed) {
       Path path = Paths.get(GatorGradlePlugin.GATORGRADER_HOME);
       Console.log("Deleting " + path);
       try {
@@ -144,68 +316,146 @@ public class DependencyManager {
     return success;
   }
 
-  private static boolean doGatorGraderMain() {
+  private static boolean doGatorGraderMain(String revision) {
     Path workingDir = Paths.get(GatorGradlePlugin.GATORGRADER_HOME);
+    File repo = workingDir.toFile();
+    Stamp stamp = Stamp.load(workingDir.resolve(STAMP_FILE));
+    boolean installed = GitUtil.gitDir(repo) != null;
 
-    // quick git fetch installation
-    BasicCommand updateOrInstall = new BasicCommand();
-    updateOrInstall.outputToSysOut(true).setWorkingDir(workingDir.toFile());
-    if (Files.exists(Paths.get(GatorGradlePlugin.GATORGRADER_HOME))) {
-      // This could be problematic -- will fetch all current development branches
-      // as well, but needed if `version` is pointing to a non-local branch or tag
-      updateOrInstall.with("git", "fetch", "--all");
-      Console.log("Updating GatorGrader...");
-    } else {
+    // tags and commits never move, so an installation stamped with one is current
+    boolean immutable = installed
+        && (GitUtil.hasTag(repo, revision) || GitUtil.isCommitHash(revision));
+    if (immutable && stamp.matches(STAMP_REVISION, revision)
+        && stamp.matches(STAMP_COMMIT, GitUtil.head(repo))
+        && stamp.matches(STAMP_LOCK, lockHash(workingDir))
+        && hasVirtualenv(workingDir)) {
+      Console.log("GatorGrader is up to date at '" + revision + "'");
+      return true;
+    }
+
+    boolean fetched = false;
+    if (!installed) {
       // make dirs
       if (!workingDir.toFile().mkdirs()) {
         Console.error("Failed to make directories: " + workingDir);
       }
-      updateOrInstall.with(
+      BasicCommand install = new BasicCommand(
           "git", "clone", GATORGRADER_GIT_REPO, GatorGradlePlugin.GATORGRADER_HOME);
+      install.outputToSysOut(true).setWorkingDir(repo);
 
       // configure gatorgrader dependencies
       Console.log("Installing GatorGrader...");
+      install.run();
+      if (install.exitValue() != Command.SUCCESS) {
+        error("GatorGrader management failed, could not get updated code!", install);
+        return false;
+      }
+    } else if (!immutable) {
+      // only the requested branch can have moved, so only fetch that one ref
+      Console.log("Updating GatorGrader...");
+      BasicCommand update = new BasicCommand("git", "fetch", "origin", revision);
+      update.outputToSysOut(true).setWorkingDir(repo);
+      update.run();
+      if (update.exitValue() == Command.SUCCESS) {
+        fetched = true;
+      } else {
+        error("Could not update GatorGrader, using the code already checked out!", update);
+      }
     }
 
-    updateOrInstall.run();
-    if (updateOrInstall.exitValue() != Command.SUCCESS) {
-      error("GatorGrader management failed, could not get updated code!", updateOrInstall);
-      return false;
-    }
-
-    String revision = GatorGradleConfig.get().getGatorGraderRevision();
     Console.log("Checking out to '" + revision + "'");
     BasicCommand checkout = new BasicCommand("git", "checkout", revision);
-    checkout.setWorkingDir(workingDir.toFile());
+    checkout.setWorkingDir(repo);
     checkout.run();
+    if (checkout.exitValue() != Command.SUCCESS && installed) {
+      // a tag or commit we have not seen yet
+      BasicCommand tags = new BasicCommand("git", "fetch", "origin", "--tags");
+      tags.outputToSysOut(true).setWorkingDir(repo);
+      tags.run();
+      checkout = new BasicCommand("git", "checkout", revision);
+      checkout.setWorkingDir(repo);
+      checkout.run();
+    }
     if (checkout.exitValue() != Command.SUCCESS) {
       error("GatorGrader management failed, could not checkout to '" + revision + "'!", checkout);
       return false;
     }
 
-    checkout = new BasicCommand("git", "pull");
-    checkout.setWorkingDir(workingDir.toFile());
-    checkout.outputToSysOut(false);
-    checkout.run();
-    if (checkout.exitValue() != Command.SUCCESS
-        && !checkout.getOutput().contains("You are not currently on a branch")) {
-      error("GatorGrader management failed, could update '" + revision + "'!", checkout);
-      return false;
+    if (fetched && GitUtil.branch(repo) != null) {
+      BasicCommand merge = new BasicCommand("git", "merge", "--ff-only", "FETCH_HEAD");
+      merge.setWorkingDir(repo);
+      merge.outputToSysOut(false);
+      merge.run();
+      if (merge.exitValue() != Command.SUCCESS) {
+        error("GatorGrader management failed, could update '" + revision + "'!", merge);
+        return false;
+      }
     }
 
-    Console.log("Managing GatorGrader's Python dependencies...");
-    BasicCommand dep = new BasicCommand("pipenv", "sync", "--bare");
-    dep.setWorkingDir(workingDir.toFile());
-    dep.outputToSysOut(false);
-    dep.run();
-    if (dep.exitValue() != Command.SUCCESS) {
-      error("GatorGrader management failed, could not install dependencies!", dep);
-      return false;
+    String lock = lockHash(workingDir);
+    if (!stamp.matches(STAMP_LOCK, lock) || !hasVirtualenv(workingDir)) {
+      Console.log("Managing GatorGrader's Python dependencies...");
+      BasicCommand dep = new BasicCommand("pipenv", "sync", "--bare");
+      dep.setWorkingDir(repo);
+      dep.outputToSysOut(false);
+      dep.run();
+      if (dep.exitValue() != Command.SUCCESS) {
+        error("GatorGrader management failed, could not install dependencies!", dep);
+        return false;
+      }
     }
+
+    stamp.put(STAMP_REVISION, revision)
+        .put(STAMP_COMMIT, GitUtil.head(repo))
+        .put(STAMP_LOCK, lock)
+        .save();
     Console.log("Finished!");
     return true;
   }
 
+  /**
+   * Check whether the virtualenv GatorGrader runs in still has its Python. It
+   * can be deleted or broken without Pipfile.lock changing, and only syncing
+   * brings it back.
+   */
+  private static boolean hasVirtualenv(Path workingDir) {
+    if (GatorGradlePlugin.GATORGRADER_PYTHON != null) {
+      // checks do not run in the virtualenv
+      return true;
+    }
+    String python = Stamp.load(workingDir.resolve(PYTHON_STAMP_FILE)).get(PYTHON_PATH);
+    try {
+      if (python != null) {
+        return Files.isRegularFile(Paths.get(python));
+      }
+      BasicCommand query = new BasicCommand("pipenv", "--venv");
+      query.setWorkingDir(workingDir.toFile());
+      query.outputToSysOut(false);
+      query.run(true);
+      return query.exitValue() == Command.SUCCESS
+          && Files.isDirectory(Paths.get(query.getOutput().trim()));
+    } catch (InvalidPathException ex) {
+      return false;
+    }
+  }
+
+  private static String lockHash(Path workingDir) {
+    Path lock = workingDir.resolve("Pipfile.lock");
+    try {
+      return Files.isRegularFile(lock) ? HashUtil.sha256(lock) : null;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private static String lastModified(Path path) {
+    try {
+      return Long.toString(Files.getLastModifiedTime(path).toMillis());
+    } catch (IOException | InvalidPathException ex) {
+      return null;
+    }
+  }
+
   private static void error(String desc, BasicCommand cmd) {
     Console.error("ERROR:", desc);
     Console.error("Command run:", cmd.toString());
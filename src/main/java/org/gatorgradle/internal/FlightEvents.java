@@ -0,0 +1,95 @@
+package org.gatorgradle.internal;
+
+/**
+ * FlightEvents reports what GatorGradle is doing to Java Flight Recorder, so
+ * recordings of a Gradle daemon show config parsing, dependency management,
+ * check processes, and result handling instead of anonymous thread time.
+ *
+ * <p>The events themselves live in org.gatorgradle.internal.jfr, in the jfr
+ * source set, which is built for Java 11 while the rest of the plugin stays
+ * Java 8 compatible. They are only loaded when the running JVM has the jdk.jfr
+ * module and the plugin was built with them. Everywhere else, and while no
+ * recording is enabled, every scope is a shared no-op.
+ */
+public class FlightEvents {
+  private static final String SINK_CLASS = "org.gatorgradle.internal.jfr.JfrSink";
+  private static final Scope NOOP = () -> { };
+  private static final Sink SINK = load();
+
+  /**
+   * A timed operation, recorded when it is closed. Values that do not apply to
+   * the kind of operation are ignored.
+   */
+  public interface Scope extends AutoCloseable {
+    default Scope withExitValue(int exitValue) {
+      return this;
+    }
+
+    default Scope withOutputSize(long chars) {
+      return this;
+    }
+
+    default Scope withOutcome(boolean outcome) {
+      return this;
+    }
+
+    default Scope withCount(int count) {
+      return this;
+    }
+
+    @Override
+    void close();
+  }
+
+  /**
+   * Creates the scopes of every kind of event. Commands are passed as objects
+   * so they are only turned into strings when a recording wants them.
+   */
+  public interface Sink {
+    Scope configParse(String path);
+
+    Scope dependency(String dependency);
+
+    Scope processSpawn(Object command);
+
+    Scope processRun(Object command);
+
+    Scope resultParse(Object command);
+
+    Scope summaryRender(String assignment);
+  }
+
+  private static Sink load() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (Sink) Class.forName(SINK_CLASS).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+      // no Flight Recorder on this JVM
+      return null;
+    }
+  }
+
+  public static Scope configParse(String path) {
+    return SINK == null ? NOOP : SINK.configParse(path);
+  }
+
+  public static Scope dependency(String dependency) {
+    return SINK == null ? NOOP : SINK.dependency(dependency);
+  }
+
+  public static Scope processSpawn(Object command) {
+    return SINK == null ? NOOP : SINK.processSpawn(command);
+  }
+
+  public static Scope processRun(Object command) {
+    return SINK == null ? NOOP : SINK.processRun(command);
+  }
+
+  public static Scope resultParse(Object command) {
+    return SINK == null ? NOOP : SINK.resultParse(command);
+  }
+
+  public static Scope summaryRender(String assignment) {
+    return SINK == null ? NOOP : SINK.summaryRender(assignment);
+  }
+}
@@ -0,0 +1,256 @@
+package org.gatorgradle.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.gatorgradle.GatorGradlePlugin;
+import org.gatorgradle.util.Console;
+import org.gatorgradle.util.HashUtil;
+import org.gatorgradle.util.Json;
+import org.gatorgradle.util.ProcessUtil;
+
+/**
+ * Runs GatorGrader checks through long-lived Python interpreters instead of
+ * starting a new interpreter for every check. Each interpreter runs the bundled
+ * driver script, which imports GatorGrader once and then answers one check per
+ * line of input. Interpreters are pooled, so at most one is started for each
+ * thread that runs checks concurrently. Each grading run has a pool of its
+ * own, so runs in parallel never stop each other's interpreters. A check that
+ * runs past its timeout has its interpreter killed, and a new one takes its
+ * place in the pool.
+ */
+public class GatorGraderBatch implements AutoCloseable {
+  public static final String DRIVER_RESOURCE = "gatorgradle_driver.py";
+
+  // the script is the same for every pool, so it is only extracted once
+  private static Path driverScript;
+
+  private final Queue<Driver> idle = new ConcurrentLinkedQueue<>();
+  private final List<Driver> drivers = new ArrayList<>();
+  // kills drivers running checks past their timeout, started on first use
+  private ScheduledExecutorService watchdog;
+
+  /**
+   * The outcome of a check run by a driver.
+   */
+  public static class Result {
+    public final int exitValue;
+    public final String output;
+    public final boolean timedOut;
+
+    Result(int exitValue, String output) {
+      this(exitValue, output, false);
+    }
+
+    private Result(int exitValue, String output, boolean timedOut) {
+      this.exitValue = exitValue;
+      this.output = output;
+      this.timedOut = timedOut;
+    }
+
+    /**
+     * Create the result of a check that was stopped for taking too long.
+     *
+     * @return the result, without any output
+     */
+    static Result timedOut() {
+      return new Result(-1, "", true);
+    }
+  }
+
+  /**
+   * A single Python interpreter running the driver script.
+   */
+  private static class Driver {
+    private final Process proc;
+    private final BufferedWriter requests;
+    private final BufferedReader responses;
+
+    Driver(Process proc) {
+      this.proc = proc;
+      this.requests = new BufferedWriter(
+          new OutputStreamWriter(proc.getOutputStream(), StandardCharsets.UTF_8));
+      this.responses = new BufferedReader(
+          new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    Result run(File workingDir, List<String> args) throws IOException {
+      String dir = (workingDir == null ? new File(".") : workingDir).getAbsolutePath();
+      requests.write("{\"cwd\": " + Json.quote(dir) + ", \"args\": " + Json.array(args) + "}");
+      requests.newLine();
+      requests.flush();
+
+      String line = responses.readLine();
+      if (line == null) {
+        throw new IOException("GatorGrader driver exited unexpectedly");
+      }
+      try {
+        Map<String, Object> response = Json.parseObject(line);
+        return new Result(
+            ((Number) response.get("exit")).intValue(), (String) response.get("output"));
+      } catch (IllegalArgumentException | ClassCastException | NullPointerException ex) {
+        throw new IOException("Malformed response from GatorGrader driver: " + line, ex);
+      }
+    }
+
+    boolean isAlive() {
+      return proc.isAlive();
+    }
+
+    void kill() {
+      ProcessUtil.destroyTree(proc);
+    }
+
+    void close() {
+      try {
+        requests.close();
+      } catch (IOException ex) {
+        Console.error("Failed to close GatorGrader driver input!");
+      }
+      proc.destroy();
+    }
+  }
+
+  /**
+   * Run a GatorGrader check through a pooled driver, starting a new driver if
+   * none are idle.
+   *
+   * @param  workingDir    the directory to run the check in
+   * @param  args          the arguments to pass to gatorgrader.py
+   * @param  timeoutMillis how long the check may run before its driver is killed, or 0
+   * @return               the exit value and output of the check
+   * @throws IOException if the driver could not be started or stopped responding
+   */
+  public Result run(File workingDir, List<String> args, long timeoutMillis) throws IOException {
+    Driver candidate = idle.poll();
+    final Driver driver = candidate == null || !candidate.isAlive() ? start() : candidate;
+    // whichever of the check and the watchdog settles this first decides the outcome
+    AtomicBoolean settled = new AtomicBoolean();
+    ScheduledFuture<?> kill = null;
+    if (timeoutMillis > 0) {
+      kill = watchdog().schedule(() -> {
+        if (settled.compareAndSet(false, true)) {
+          driver.kill();
+        }
+      }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    try {
+      Result result = driver.run(workingDir, args);
+      if (!settled.compareAndSet(false, true)) {
+        // killed just as it answered, so it cannot be reused
+        driver.close();
+        return Result.timedOut();
+      }
+      idle.offer(driver);
+      return result;
+    } catch (IOException ex) {
+      // a driver in an unknown state cannot be reused
+      driver.close();
+      if (!settled.compareAndSet(false, true)) {
+        return Result.timedOut();
+      }
+      throw ex;
+    } finally {
+      if (kill != null) {
+        kill.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Stop every driver started so far.
+   */
+  @Override
+  public void close() {
+    synchronized (drivers) {
+      drivers.forEach(Driver::close);
+      drivers.clear();
+      idle.clear();
+      if (watchdog != null) {
+        watchdog.shutdownNow();
+        watchdog = null;
+      }
+    }
+  }
+
+  private ScheduledExecutorService watchdog() {
+    synchronized (drivers) {
+      if (watchdog == null) {
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "gatorgradle-batch-timeout");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      return watchdog;
+    }
+  }
+
+  private Driver start() throws IOException {
+    ProcessBuilder pb = new ProcessBuilder(DependencyManager.getPython(),
+        driverScript().toString(), GatorGradlePlugin.GATORGRADER_HOME);
+    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+    Driver driver = new Driver(pb.start());
+    synchronized (drivers) {
+      drivers.add(driver);
+    }
+    return driver;
+  }
+
+  /**
+   * Get the path to the driver script, extracting it from the plugin if needed.
+   * The script's name includes a hash of its contents, so plugin upgrades never
+   * run an outdated driver.
+   *
+   * @return the path to the driver script
+   * @throws IOException if the script could not be extracted
+   */
+  static synchronized Path driverScript() throws IOException {
+    if (driverScript == null) {
+      ByteArrayOutputStream contents = new ByteArrayOutputStream();
+      try (InputStream in = GatorGraderBatch.class.getResourceAsStream(DRIVER_RESOURCE)) {
+        if (in == null) {
+          throw new IOException("Missing resource " + DRIVER_RESOURCE);
+        }
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          contents.write(buffer, 0, read);
+        }
+      }
+      Path dir = Paths.get(GatorGradlePlugin.GATORGRADLE_HOME);
+      Files.createDirectories(dir);
+      Path script = dir.resolve("gatorgradle_driver-"
+          + HashUtil.sha256(contents.toByteArray()).substring(0, 12) + ".py");
+      if (!Files.isRegularFile(script)) {
+        // other builds may be extracting the same script right now
+        Path temp = Files.createTempFile(dir, "gatorgradle_driver", ".tmp");
+        Files.write(temp, contents.toByteArray());
+        Files.move(temp, script, StandardCopyOption.REPLACE_EXISTING);
+      }
+      driverScript = script;
+    }
+    return driverScript;
+  }
+}
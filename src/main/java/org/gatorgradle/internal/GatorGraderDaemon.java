@@ -0,0 +1,224 @@
+package org.gatorgradle.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.gatorgradle.GatorGradlePlugin;
+import org.gatorgradle.util.Console;
+import org.gatorgradle.util.GitUtil;
+import org.gatorgradle.util.HashUtil;
+import org.gatorgradle.util.Json;
+
+/**
+ * Runs GatorGrader checks through a long-lived GatorGrader daemon that
+ * survives across builds, much like the Gradle daemon. The daemon is the
+ * bundled driver script serving requests over a localhost socket; it is
+ * started on demand and stops by itself after being idle for a while.
+ *
+ * <p>Daemons are keyed by the GatorGrader installation, the commit checked
+ * out in it, and the driver script, so an updated GatorGrader or plugin never
+ * talks to an outdated daemon.
+ */
+public class GatorGraderDaemon {
+  public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = TimeUnit.HOURS.toSeconds(3);
+  private static final long START_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+  // how much longer than a check's timeout to wait for the daemon to stop it
+  private static final long TIMEOUT_GRACE = TimeUnit.SECONDS.toMillis(10);
+
+  // keyed like the daemons themselves, so checks always reach the daemon of
+  // the GatorGrader installed right now, even when it changes in a Gradle daemon
+  private static final Map<String, Connection> connections = new HashMap<>();
+
+  /**
+   * Where a running daemon can be reached.
+   */
+  private static class Connection {
+    private final int port;
+    private final String token;
+
+    Connection(int port, String token) {
+      this.port = port;
+      this.token = token;
+    }
+
+    GatorGraderBatch.Result request(File workingDir, List<String> args, long timeoutMillis)
+        throws IOException {
+      String dir = (workingDir == null ? new File(".") : workingDir).getAbsolutePath();
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+        if (timeoutMillis > 0) {
+          // the daemon stops the check itself, this only guards against a daemon
+          // that cannot, such as one that does not fork
+          socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis + TIMEOUT_GRACE));
+        }
+        BufferedWriter out = new BufferedWriter(
+            new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        out.write("{\"token\": " + Json.quote(token) + ", \"cwd\": " + Json.quote(dir)
+            + ", \"args\": " + Json.array(args)
+            + ", \"timeout\": " + timeoutMillis / 1000.0 + "}");
+        out.newLine();
+        out.flush();
+
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        try {
+          line = in.readLine();
+        } catch (SocketTimeoutException ex) {
+          return GatorGraderBatch.Result.timedOut();
+        }
+        if (line == null) {
+          throw new IOException("GatorGrader daemon closed the connection");
+        }
+        try {
+          Map<String, Object> response = Json.parseObject(line);
+          if (Boolean.TRUE.equals(response.get("timedOut"))) {
+            return GatorGraderBatch.Result.timedOut();
+          }
+          return new GatorGraderBatch.Result(
+              ((Number) response.get("exit")).intValue(), (String) response.get("output"));
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException ex) {
+          throw new IOException("Malformed response from GatorGrader daemon: " + line, ex);
+        }
+      }
+    }
+  }
+
+  /**
+   * Run a GatorGrader check through the daemon, starting it if needed.
+   *
+   * @param  workingDir    the directory to run the check in
+   * @param  args          the arguments to pass to gatorgrader.py
+   * @param  timeoutMillis how long the check may run before it is stopped, or 0
+   * @param  idleSeconds   how long a daemon started for this check stays idle before stopping
+   * @return               the exit value and output of the check
+   * @throws IOException if the daemon could not be started or reached
+   */
+  public static GatorGraderBatch.Result run(File workingDir, List<String> args,
+      long timeoutMillis, long idleSeconds) throws IOException {
+    Connection conn = connection(null, idleSeconds);
+    try {
+      return conn.request(workingDir, args, timeoutMillis);
+    } catch (ConnectException ex) {
+      // the daemon went away since it was last used
+      return connection(conn, idleSeconds).request(workingDir, args, timeoutMillis);
+    }
+  }
+
+  /**
+   * Get a connection to a running daemon for the GatorGrader currently
+   * installed. A daemon that is already running keeps the idle timeout it was
+   * started with.
+   *
+   * @param  stale       a connection known to be dead, or null
+   * @param  idleSeconds the idle timeout of a newly started daemon
+   * @return             a connection to a live daemon
+   * @throws IOException if no daemon could be started
+   */
+  private static synchronized Connection connection(Connection stale, long idleSeconds)
+      throws IOException {
+    String key = key();
+    Connection known = connections.get(key);
+    if (known != null && known != stale) {
+      return known;
+    }
+    connections.remove(key);
+
+    Path dir = Paths.get(GatorGradlePlugin.GATORGRADLE_HOME, "daemon");
+    Files.createDirectories(dir);
+    Path state = dir.resolve(key + ".json");
+
+    // hold a lock so concurrent builds do not each start their own daemon
+    File lockPath = dir.resolve(key + ".lock").toFile();
+    try (RandomAccessFile lockFile = new RandomAccessFile(lockPath, "rw")) {
+      FileLock lock = lockFile.getChannel().lock();
+      try {
+        Connection conn = read(state);
+        if (conn == null || !isAlive(conn)) {
+          Files.deleteIfExists(state);
+          conn = start(dir.resolve(key + ".log"), state, idleSeconds);
+        }
+        connections.put(key, conn);
+        return conn;
+      } finally {
+        lock.release();
+      }
+    }
+  }
+
+  private static String key() throws IOException {
+    return HashUtil.sha256(GatorGradlePlugin.GATORGRADER_HOME
+        + "\n" + GitUtil.head(new File(GatorGradlePlugin.GATORGRADER_HOME))
+        + "\n" + GatorGraderBatch.driverScript()).substring(0, 16);
+  }
+
+  private static Connection start(Path log, Path state, long idleSeconds)
+      throws IOException {
+    Console.log("Starting GatorGrader daemon...");
+    ProcessBuilder pb = new ProcessBuilder(DependencyManager.getPython(),
+        GatorGraderBatch.driverScript().toString(), GatorGradlePlugin.GATORGRADER_HOME,
+        "--serve", state.toString(), Long.toString(idleSeconds));
+    pb.redirectErrorStream(true);
+    pb.redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()));
+    Process proc = pb.start();
+
+    long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+    while (System.currentTimeMillis() < deadline) {
+      Connection conn = read(state);
+      if (conn != null) {
+        return conn;
+      }
+      if (!proc.isAlive()) {
+        throw new IOException(
+            "GatorGrader daemon exited with code " + proc.exitValue() + ", see " + log);
+      }
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while starting GatorGrader daemon", ex);
+      }
+    }
+    proc.destroy();
+    throw new IOException("GatorGrader daemon did not start in time, see " + log);
+  }
+
+  private static Connection read(Path state) {
+    if (!Files.isRegularFile(state)) {
+      return null;
+    }
+    try {
+      Map<String, Object> obj =
+          Json.parseObject(new String(Files.readAllBytes(state), StandardCharsets.UTF_8));
+      return new Connection(((Number) obj.get("port")).intValue(), (String) obj.get("token"));
+    } catch (IOException | IllegalArgumentException | ClassCastException
+        | NullPointerException ex) {
+      return null;
+    }
+  }
+
+  private static boolean isAlive(Connection conn) {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), conn.port)) {
+      return socket.isConnected();
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+}
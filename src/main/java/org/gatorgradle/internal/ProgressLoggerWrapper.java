@@ -18,13 +18,12 @@
 
 package org.gatorgradle.internal;
 
-import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
 import org.gatorgradle.util.Console;
 
-import org.gradle.api.Project;
+import org.gradle.api.Task;
 import org.gradle.api.logging.Logger;
 
 /**
@@ -40,12 +39,13 @@ public class ProgressLoggerWrapper {
   private Object progressLogger;
 
   /**
-   * Create a progress logger wrapper.
-   * @param project the current Gradle project
+   * Create a progress logger wrapper. The task's own services are used rather
+   * than the project's, since the project may not be used while tasks run.
+   * @param task the task whose progress is logged
    * @param description the description for the logging
    */
-  public ProgressLoggerWrapper(Project project, String description) {
-    logger = project.getLogger();
+  public ProgressLoggerWrapper(Task task, String description) {
+    logger = task.getLogger();
 
     // we are about to access an internal class. Use reflection here to provide
     // as much compatibility to different Gradle versions as possible
@@ -63,7 +63,7 @@ public class ProgressLoggerWrapper {
     Object serviceFactory = null;
     Object progressLoggerFactory = null;
     try {
-      serviceFactory = invoke(project, "getServices");
+      serviceFactory = invoke(task, "getServices");
       progressLoggerFactory = invoke(serviceFactory, "get", progressLoggerFactoryClass);
       // get actual progress logger
       progressLogger = invoke(progressLoggerFactory, "newOperation", getClass());
@@ -94,11 +94,36 @@ public class ProgressLoggerWrapper {
     for (int i = 0; i < args.length; ++i) {
       argumentTypes[i] = args[i].getClass();
     }
-    Method met = obj.getClass().getMethod(method, argumentTypes);
+    Method met = find(obj.getClass(), method, argumentTypes);
     met.setAccessible(true);
     return met.invoke(obj, args);
   }
 
+  /**
+   * Find a method, including ones that are not public, such as the services of
+   * a task in newer Gradle versions.
+   * @param cls the class to look in, along with its superclasses
+   * @param method the name of the method
+   * @param argumentTypes the types of its parameters
+   * @return the method
+   * @throws NoSuchMethodException if no such method exists
+   */
+  private static Method find(Class<?> cls, String method, Class<?>... argumentTypes)
+      throws NoSuchMethodException {
+    try {
+      return cls.getMethod(method, argumentTypes);
+    } catch (NoSuchMethodException ex) {
+      for (Class<?> current = cls; current != null; current = current.getSuperclass()) {
+        try {
+          return current.getDeclaredMethod(method, argumentTypes);
+        } catch (NoSuchMethodException notHere) {
+          // keep looking in the superclass
+        }
+      }
+      throw ex;
+    }
+  }
+
   /**
    * Invoke a method using reflection but don't throw any exceptions.
    *  Just log errors instead.
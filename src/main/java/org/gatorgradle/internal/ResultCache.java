@@ -0,0 +1,253 @@
+package org.gatorgradle.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.command.GatorGraderCommand;
+import org.gatorgradle.config.GatorGradleConfig;
+import org.gatorgradle.util.Console;
+import org.gatorgradle.util.GitUtil;
+import org.gatorgradle.util.HashUtil;
+
+/**
+ * Persistent cache of check results, so checks whose inputs have not changed
+ * since the last run do not have to run again.
+ *
+ * <p>Entries are keyed by the check's arguments, the tools it runs with, and a
+ * hash of whatever the check looks at: the file or directory a check is given
+ * with --file and --directory, the path passed to an executable, or the
+ * project's git HEAD for repository-wide checks such as --commits. The tools
+ * are the GatorGrader installation and Python for GatorGrader checks, and for
+ * executables, the executable itself, its version, and the configuration files
+ * it reads, see Toolchain. Pure checks, checks running arbitrary commands, and
+ * executables that cannot be found are never cached.
+ *
+ * <p>Once a run completes, entries none of its checks had a key for are pruned,
+ * so the cache only ever holds the results of the latest run.
+ */
+public class ResultCache {
+  // bump when the key or entry format changes
+  private static final String FORMAT = "2";
+
+  private static final String FILE_FLAG = "--file";
+  private static final String DIRECTORY_FLAG = "--directory";
+  private static final List<String> UNCACHEABLE_FLAGS = Arrays.asList("--command");
+  private static final List<String> IGNORED_DIRS = Arrays.asList(".git", ".gradle", "build");
+
+  private final Path dir;
+  private final File projectDir;
+  private final GatorGradleConfig config;
+  // the GatorGrader installation and the Python it runs with
+  private final String gatorgrader;
+  private final Map<Path, String> hashes = new ConcurrentHashMap<>();
+  // the keys of the checks of this run, whose entries are kept when pruning
+  private final Set<String> used = ConcurrentHashMap.newKeySet();
+  private String projectHead;
+
+  /**
+   * Create a cache storing its entries in the given directory.
+   *
+   * @param dir        the directory to keep entries in
+   * @param projectDir the directory checks run in by default
+   * @param config     the configuration the checks came from
+   */
+  public ResultCache(Path dir, File projectDir, GatorGradleConfig config) {
+    this.dir = dir;
+    this.projectDir = projectDir;
+    this.config = config;
+    this.gatorgrader = Toolchain.gatorGrader(config.getGatorGraderRevision())
+        + "\n" + Toolchain.python();
+  }
+
+  /**
+   * Compute the cache key of the given command.
+   *
+   * @param  cmd the command to compute a key for
+   * @return     the key, or null if the command's result cannot be cached
+   */
+  public String key(Command cmd) {
+    if (!(cmd instanceof BasicCommand)) {
+      return null;
+    }
+    BasicCommand basic = (BasicCommand) cmd;
+    File workingDir = basic.getWorkingDir() != null ? basic.getWorkingDir() : projectDir;
+
+    List<String> args;
+    String tools;
+    String target;
+    try {
+      if (basic instanceof GatorGraderCommand) {
+        args = ((GatorGraderCommand) basic).checkArguments();
+        if (args.stream().anyMatch(UNCACHEABLE_FLAGS::contains)) {
+          return null;
+        }
+        tools = gatorgrader;
+        target = gatorGraderTarget(workingDir, args);
+      } else if (config.isCommandLineExecutable(basic.executable())) {
+        args = basic.arguments();
+        String executable = Toolchain.describe(basic.executable());
+        if (executable == null) {
+          return null;
+        }
+        tools = executable + "\n" + Toolchain.hashConfigFiles(basic.executable(), workingDir);
+        target = hash(workingDir.toPath().resolve(basic.last()));
+      } else {
+        return null;
+      }
+    } catch (IOException ex) {
+      Console.error("Could not hash inputs of " + cmd + ": " + ex.getMessage());
+      return null;
+    }
+    if (target == null) {
+      return null;
+    }
+
+    String key = HashUtil.sha256(FORMAT + "\n" + tools + "\n" + workingDir.getAbsolutePath()
+        + "\n" + String.join("\u0000", args) + "\n" + target);
+    used.add(key);
+    return key;
+  }
+
+  private String gatorGraderTarget(File workingDir, List<String> args) throws IOException {
+    String file = valueOf(args, FILE_FLAG);
+    String directory = valueOf(args, DIRECTORY_FLAG);
+    if (file == null && directory == null) {
+      // repository-wide checks depend on the commit history
+      return projectHead();
+    }
+    Path target = workingDir.toPath();
+    if (directory != null) {
+      target = target.resolve(directory);
+    }
+    if (file != null) {
+      target = target.resolve(file);
+    }
+    return hash(target);
+  }
+
+  private static String valueOf(List<String> args, String flag) {
+    int index = args.lastIndexOf(flag);
+    return index >= 0 && index + 1 < args.size() ? args.get(index + 1) : null;
+  }
+
+  private synchronized String projectHead() {
+    if (projectHead == null) {
+      projectHead = GitUtil.head(projectDir);
+    }
+    return projectHead;
+  }
+
+  private String hash(Path path) throws IOException {
+    Path normal = path.toAbsolutePath().normalize();
+    String hash = hashes.get(normal);
+    if (hash == null) {
+      if (Files.isRegularFile(normal)) {
+        hash = HashUtil.sha256(normal);
+      } else if (Files.isDirectory(normal)) {
+        hash = hashDirectory(normal);
+      } else {
+        hash = "missing";
+      }
+      hashes.put(normal, hash);
+    }
+    return hash;
+  }
+
+  private String hashDirectory(Path root) throws IOException {
+    StringBuilder listing = new StringBuilder();
+    try (Stream<Path> paths = Files.walk(root)) {
+      List<Path> files = paths.filter(Files::isRegularFile)
+          .filter(path -> !isIgnored(root.relativize(path)))
+          .sorted()
+          .collect(Collectors.toList());
+      for (Path file : files) {
+        listing.append(root.relativize(file)).append('\u0000')
+            .append(hash(file)).append('\n');
+      }
+    }
+    return HashUtil.sha256(listing.toString());
+  }
+
+  private static boolean isIgnored(Path relative) {
+    return relative.getNameCount() > 1 && IGNORED_DIRS.contains(relative.getName(0).toString());
+  }
+
+  /**
+   * Complete the given command with its cached result, if there is one.
+   *
+   * @param  cmd the command to restore
+   * @param  key the command's cache key
+   * @return     true if the command was completed from the cache
+   */
+  public boolean restore(BasicCommand cmd, String key) {
+    Path entry = dir.resolve(key);
+    if (!Files.isRegularFile(entry)) {
+      return false;
+    }
+    int exitValue;
+    String output;
+    try {
+      String contents = new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+      int newline = contents.indexOf('\n');
+      exitValue = Integer.parseInt(contents.substring(0, newline));
+      output = contents.substring(newline + 1);
+    } catch (IOException | NumberFormatException | IndexOutOfBoundsException ex) {
+      Console.error("Ignoring unreadable cache entry " + entry + ": " + ex.getMessage());
+      return false;
+    }
+    cmd.finish(exitValue, output);
+    return true;
+  }
+
+  /**
+   * Store the result of the given finished command.
+   *
+   * @param cmd the command whose result to store
+   * @param key the command's cache key
+   */
+  public void store(BasicCommand cmd, String key) {
+    try {
+      Files.createDirectories(dir);
+      Path temp = Files.createTempFile(dir, key, ".tmp");
+      String contents = cmd.exitValue() + "\n" + cmd.getOutput();
+      Files.write(temp, contents.getBytes(StandardCharsets.UTF_8));
+      Files.move(temp, dir.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      Console.error("Failed to cache the result of " + cmd + ": " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Delete every entry that no check of this run computed a key for, such as
+   * the results of checks over files that have since changed, or of checks no
+   * longer in the config. Only call this once every check of the run completed.
+   */
+  public void prune() {
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    try (Stream<Path> entries = Files.list(dir)) {
+      List<Path> unused = entries
+          .filter(entry -> !used.contains(entry.getFileName().toString()))
+          .collect(Collectors.toList());
+      for (Path entry : unused) {
+        Files.deleteIfExists(entry);
+      }
+    } catch (IOException ex) {
+      Console.error("Failed to prune the result cache in " + dir + ": " + ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package org.gatorgradle.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.gatorgradle.util.Console;
+
+/**
+ * A small properties file recording what was true the last time some slow
+ * piece of work was done, so the work can be skipped while it still holds.
+ */
+class Stamp {
+  private final Path file;
+  private final Properties props = new Properties();
+
+  private Stamp(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Load the stamp stored in the given file. A missing or unreadable file
+   * results in an empty stamp.
+   *
+   * @param  file the file the stamp is stored in
+   * @return      the stamp
+   */
+  static Stamp load(Path file) {
+    Stamp stamp = new Stamp(file);
+    if (Files.isRegularFile(file)) {
+      try (InputStream in = Files.newInputStream(file)) {
+        stamp.props.load(in);
+      } catch (IOException | IllegalArgumentException ex) {
+        stamp.props.clear();
+      }
+    }
+    return stamp;
+  }
+
+  String get(String key) {
+    return props.getProperty(key);
+  }
+
+  /**
+   * Check whether the stamp holds the given value for the given key.
+   *
+   * @param  key   the key to check
+   * @param  value the expected value, may be null
+   * @return       true if the stored value equals the given value
+   */
+  boolean matches(String key, String value) {
+    return value != null && value.equals(props.getProperty(key));
+  }
+
+  Stamp put(String key, String value) {
+    if (value == null) {
+      props.remove(key);
+    } else {
+      props.setProperty(key, value);
+    }
+    return this;
+  }
+
+  void clear() {
+    props.clear();
+  }
+
+  /**
+   * Save the stamp, replacing the file atomically so concurrent builds never
+   * see it half written.
+   */
+  void save() {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "stamp", ".tmp");
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        props.store(out, "GatorGradle");
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      Console.error("Failed to save " + file + ": " + ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package org.gatorgradle.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gatorgradle.GatorGradlePlugin;
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.util.GitUtil;
+import org.gatorgradle.util.HashUtil;
+
+/**
+ * Identifies the tools checks run with, so results can only be reused while
+ * the same tools, with the same configuration, would produce them again.
+ */
+public class Toolchain {
+  private static final long VERSION_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  // linters whose output depends on their version and on the files they are
+  // configured by, which are looked up in the directory they run in and in the
+  // user's home directory
+  private static final Map<String, List<String>> CONFIG_FILES = new HashMap<>();
+
+  static {
+    CONFIG_FILES.put("mdl", Arrays.asList(".mdlrc"));
+    CONFIG_FILES.put("proselint",
+        Arrays.asList(".proselintrc", ".config/proselint/config"));
+    CONFIG_FILES.put("htmlhint", Arrays.asList(".htmlhintrc"));
+  }
+
+  // descriptions keyed by fingerprint, so an upgraded tool is described again
+  private static final Map<String, String> descriptions = new ConcurrentHashMap<>();
+
+  // records the version each linter reported, along with the fingerprint it
+  // had then, so new build daemons do not have to ask again
+  private static final String VERSIONS_FILE = "versions.properties";
+  private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+  private static Stamp versionStamp;
+
+  /**
+   * Identify the given executable by where it is found and when it was last
+   * modified.
+   *
+   * @param  executable the name of the executable, or a path to it
+   * @return            the fingerprint, or null if it cannot be found
+   */
+  public static String fingerprint(String executable) {
+    List<String> extensions = Arrays.asList("");
+    if (GatorGradlePlugin.OS.equals(GatorGradlePlugin.WINDOWS)) {
+      String pathext = System.getenv("PATHEXT");
+      extensions = Arrays.asList((pathext == null ? ".EXE;.BAT;.CMD" : pathext).split(";"));
+    }
+    List<String> candidates = new ArrayList<>();
+    if (executable.contains("/") || executable.contains(File.separator)) {
+      candidates.add(executable);
+      extensions.forEach(ext -> candidates.add(executable + ext));
+    } else {
+      String path = System.getenv("PATH");
+      if (path == null) {
+        return null;
+      }
+      for (String dir : path.split(File.pathSeparator)) {
+        for (String ext : extensions) {
+          candidates.add((dir.isEmpty() ? "." : dir) + File.separator + executable + ext);
+        }
+      }
+    }
+    try {
+      for (String name : candidates) {
+        Path candidate = Paths.get(name);
+        if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+          Path real = candidate.toRealPath();
+          return candidate.toAbsolutePath() + " -> " + real
+              + " @ " + Files.getLastModifiedTime(real).toMillis();
+        }
+      }
+    } catch (IOException | InvalidPathException ex) {
+      return null;
+    }
+    return null;
+  }
+
+  /**
+   * Describe the given executable well enough to tell when its results could
+   * change: its fingerprint and, for the linters known to be configurable, the
+   * version it reports. Wrapper scripts often stay the same when the tool they
+   * start is upgraded, which only the reported version shows. The version is
+   * remembered in GATORGRADLE_HOME until the fingerprint changes.
+   *
+   * @param  executable the name of the executable, or a path to it
+   * @return            the description, or null if the executable cannot be found
+   */
+  public static String describe(String executable) {
+    String fingerprint = fingerprint(executable);
+    if (fingerprint == null) {
+      return null;
+    }
+    if (!CONFIG_FILES.containsKey(executable)) {
+      return fingerprint;
+    }
+    return descriptions.computeIfAbsent(fingerprint,
+        key -> key + "\n" + version(executable, key));
+  }
+
+  private static String version(String executable, String fingerprint) {
+    Stamp stamp = versions();
+    synchronized (stamp) {
+      if (stamp.matches(executable + FINGERPRINT_SUFFIX, fingerprint)) {
+        return stamp.get(executable);
+      }
+    }
+    BasicCommand cmd = new BasicCommand(executable, "--version").outputToSysOut(false);
+    cmd.timeout(VERSION_TIMEOUT_MILLIS);
+    cmd.run(true);
+    String version = cmd.exitValue() + " " + cmd.getOutput().trim();
+    if (cmd.exitValue() == Command.SUCCESS) {
+      synchronized (stamp) {
+        stamp.put(executable, version).put(executable + FINGERPRINT_SUFFIX, fingerprint).save();
+      }
+    }
+    return version;
+  }
+
+  private static synchronized Stamp versions() {
+    if (versionStamp == null) {
+      versionStamp = Stamp.load(Paths.get(GatorGradlePlugin.GATORGRADLE_HOME, VERSIONS_FILE));
+    }
+    return versionStamp;
+  }
+
+  /**
+   * Get the configuration files the given executable could read when run in
+   * the given directory, whether or not they exist.
+   *
+   * @param  executable the name of the executable
+   * @param  workingDir the directory it runs in
+   * @return            the files, empty if the executable is not a known linter
+   */
+  public static List<File> configFiles(String executable, File workingDir) {
+    List<String> names = CONFIG_FILES.get(executable);
+    if (names == null) {
+      return Collections.emptyList();
+    }
+    List<File> files = new ArrayList<>();
+    String home = System.getProperty("user.home");
+    for (String name : names) {
+      files.add(new File(workingDir, name));
+      if (home != null) {
+        files.add(new File(home, name));
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Hash the configuration files the given executable could read when run in
+   * the given directory.
+   *
+   * @param  executable the name of the executable
+   * @param  workingDir the directory it runs in
+   * @return            the hash of the files and their contents
+   * @throws IOException if a file exists but cannot be read
+   */
+  public static String hashConfigFiles(String executable, File workingDir) throws IOException {
+    StringBuilder listing = new StringBuilder();
+    for (File file : configFiles(executable, workingDir)) {
+      listing.append(file.getAbsolutePath()).append('\u0000')
+          .append(file.isFile() ? HashUtil.sha256(file.toPath()) : "missing").append('\n');
+    }
+    return HashUtil.sha256(listing.toString());
+  }
+
+  /**
+   * Identify the GatorGrader in use: the commit checked out, or for a
+   * GATORGRADER_HOME that is not a git repository, the names, sizes and
+   * modification times of its Python files. The given revision is only used
+   * if neither is available.
+   *
+   * @param  revision the revision the config asks for
+   * @return          the identity of the GatorGrader installation
+   */
+  public static String gatorGrader(String revision) {
+    File home = new File(GatorGradlePlugin.GATORGRADER_HOME);
+    String head = GitUtil.head(home);
+    if (head != null) {
+      return head;
+    }
+    if (!home.isDirectory()) {
+      return revision;
+    }
+    Path root = home.toPath();
+    try (Stream<Path> paths = Files.walk(root)) {
+      List<Path> sources = paths
+          .filter(path -> path.toString().endsWith(".py"))
+          .filter(path -> !root.relativize(path).toString().startsWith("."))
+          .sorted()
+          .collect(Collectors.toList());
+      StringBuilder listing = new StringBuilder();
+      for (Path source : sources) {
+        listing.append(root.relativize(source)).append('\u0000')
+            .append(Files.size(source)).append(' ')
+            .append(Files.getLastModifiedTime(source).toMillis()).append('\n');
+      }
+      return "files:" + HashUtil.sha256(listing.toString());
+    } catch (IOException ex) {
+      return revision;
+    }
+  }
+
+  /**
+   * Identify the Python interpreter GatorGrader checks run with.
+   *
+   * @return the fingerprint of the interpreter, or its path if it cannot be found
+   */
+  public static String python() {
+    String python = DependencyManager.getPython();
+    String fingerprint = fingerprint(python);
+    return fingerprint != null ? fingerprint : python;
+  }
+}
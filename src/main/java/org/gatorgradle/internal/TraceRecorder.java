@@ -0,0 +1,98 @@
+package org.gatorgradle.internal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.gatorgradle.util.Json;
+
+/**
+ * Records what a grading run spent its time on and writes it in the Chrome
+ * trace event format, which chrome://tracing and https://ui.perfetto.dev can
+ * show as a timeline with one row per thread.
+ */
+public class TraceRecorder {
+  private final long origin = System.nanoTime();
+  private final Queue<String> events = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Time a phase that runs on the current thread.
+   *
+   * @param name     the name of the phase
+   * @param category the kind of phase, used to group and color events
+   * @param phase    the phase to run
+   */
+  public void time(String name, String category, Runnable phase) {
+    time(name, category, () -> {
+      phase.run();
+      return null;
+    });
+  }
+
+  /**
+   * Time a phase that runs on the current thread and produces a value. The
+   * phase is recorded even if it throws.
+   *
+   * @param  <T>      the type of value produced
+   * @param  name     the name of the phase
+   * @param  category the kind of phase, used to group and color events
+   * @param  phase    the phase to run
+   * @return          the value the phase produced
+   */
+  public <T> T time(String name, String category, Supplier<T> phase) {
+    long start = System.nanoTime();
+    try {
+      return phase.get();
+    } finally {
+      record(name, category, start, System.nanoTime(), Thread.currentThread().getId());
+    }
+  }
+
+  /**
+   * Record a phase that has already ended.
+   *
+   * @param name     the name of the phase
+   * @param category the kind of phase
+   * @param start    when the phase started, from System.nanoTime
+   * @param end      when the phase ended, from System.nanoTime
+   * @param thread   the id of the thread the phase ran on
+   */
+  public void record(String name, String category, long start, long end, long thread) {
+    if (end < start) {
+      return;
+    }
+    events.add("{\"name\": " + Json.quote(name) + ", \"cat\": " + Json.quote(category)
+        + ", \"ph\": \"X\", \"ts\": " + micros(start - origin)
+        + ", \"dur\": " + micros(end - start) + ", \"pid\": 1, \"tid\": " + thread + "}");
+  }
+
+  private static long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos);
+  }
+
+  /**
+   * Write every recorded event to the given file.
+   *
+   * @param  file the file to write to
+   * @throws IOException if the file could not be written
+   */
+  public void write(File file) throws IOException {
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      out.write("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+      boolean first = true;
+      for (String event : events) {
+        out.write(first ? "\n" : ",\n");
+        out.write(event);
+        first = false;
+      }
+      out.write("\n]}\n");
+    }
+  }
+}
@@ -1,17 +1,16 @@
 package org.gatorgradle.task;
 
-import javax.inject.Inject;
+import java.util.function.BiConsumer;
 
 import org.gatorgradle.command.Command;
 
-import org.gradle.workers.WorkerExecutor;
-
 public class CommandExecutor implements Runnable {
   private Command command;
+  private BiConsumer<Command, Throwable> failed;
 
-  @Inject
-  public CommandExecutor(Command command) {
+  public CommandExecutor(Command command, BiConsumer<Command, Throwable> failed) {
     this.command = command;
+    this.failed = failed;
   }
 
   /**
@@ -19,6 +18,11 @@ public class CommandExecutor implements Runnable {
    */
   @Override
   public void run() {
-    command.run();
+    try {
+      command.run();
+    } catch (RuntimeException | Error ex) {
+      // fails the build instead of leaving it waiting on this check
+      failed.accept(command, ex);
+    }
   }
 }
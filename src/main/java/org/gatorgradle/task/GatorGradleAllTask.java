@@ -0,0 +1,417 @@
+package org.gatorgradle.task;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.config.GatorGradleConfig;
+import org.gatorgradle.display.CommandOutputSummary;
+import org.gatorgradle.display.GradeReport;
+import org.gatorgradle.display.JUnitReport;
+import org.gatorgradle.display.JsonLinesReport;
+import org.gatorgradle.internal.ProgressLoggerWrapper;
+import org.gatorgradle.internal.ResultCache;
+import org.gatorgradle.internal.Toolchain;
+import org.gatorgradle.internal.TraceRecorder;
+import org.gatorgradle.util.Console;
+import org.gatorgradle.util.Json;
+import org.gatorgradle.util.StringUtil;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+
+/**
+ * GatorGradleAllTask grades every submission in a directory, one submission
+ * per subdirectory, in a single build. Dependencies are checked and the config
+ * is parsed only once, and the checks of every submission run on one shared
+ * set of threads, so grading many submissions does not cost a build each.
+ *
+ * <p>Every submission gets the results files the grade task writes, in a
+ * directory of its own, and a summary of all of them is written alongside.
+ * Failing checks never fail this task; only being unable to grade does.
+ */
+public abstract class GatorGradleAllTask extends DefaultTask {
+  public static final String SUMMARY_FILE = "summary.json";
+
+  private static final String RESULTS_FILE = "grade-results.json";
+  private static final String JSON_RESULTS_FILE = "results.jsonl";
+  private static final String JUNIT_FILE = "TEST-gatorgradle.xml";
+  // only written when the task runs, so an up-to-date task keeps the last trace
+  private static final String TRACE_FILE = "trace.json";
+
+  private final RegularFileProperty configFile = getProject().getObjects().fileProperty();
+  private final DirectoryProperty submissionsDir = getProject().getObjects().directoryProperty();
+  private final Map<String, String> headerOverrides =
+      GatorGradleTask.propertyOverrides(getProject());
+  private final int maxWorkers = getProject().getGradle().getStartParameter().getMaxWorkerCount();
+  private File compiledConfigFile;
+  private File outputDir;
+  private transient GatorGradleConfig config;
+
+  /**
+   * A submission being graded, along with how grading it went.
+   */
+  private static class Submission {
+    private final String name;
+    private final File dir;
+    private final List<Command> checks = new ArrayList<>();
+    private GradingRun run;
+    private GradeReport report;
+    private String error;
+
+    Submission(File dir) {
+      this.name = dir.getName();
+      this.dir = dir;
+    }
+
+    int passed() {
+      return (int) report.getResults().stream().filter(result -> result.outcome).count();
+    }
+
+    int total() {
+      return report.getResults().size();
+    }
+  }
+
+  /**
+   * Get the factory used to create the file collections of this task.
+   *
+   * @return the factory, injected by Gradle
+   */
+  @Inject
+  protected abstract ObjectFactory getObjectFactory();
+
+  /**
+   * Get the config file listing the checks every submission is graded with.
+   *
+   * @return the config file
+   */
+  @InputFile
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public RegularFileProperty getConfigFile() {
+    return configFile;
+  }
+
+  /**
+   * Get the directory holding one submission per subdirectory.
+   *
+   * @return the directory of submissions
+   */
+  @InputDirectory
+  @Optional
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public DirectoryProperty getSubmissionsDir() {
+    return submissionsDir;
+  }
+
+  @Option(option = "submissions", description = "Grades the submissions in the given directory.")
+  public void setSubmissions(String path) {
+    submissionsDir.set(getProject().file(path));
+  }
+
+  public void setCompiledConfigFile(File file) {
+    this.compiledConfigFile = file;
+  }
+
+  @Internal
+  public File getCompiledConfigFile() {
+    return compiledConfigFile;
+  }
+
+  public void setOutputDir(File dir) {
+    this.outputDir = dir;
+  }
+
+  /**
+   * Get the directory the results of each submission are written to, in a
+   * subdirectory named after it, along with the summary of every submission.
+   *
+   * @return the directory
+   */
+  @OutputDirectory
+  public File getOutputDir() {
+    return outputDir;
+  }
+
+  /**
+   * Get the header values given as project properties, such as
+   * -Pgatorgradle.parallelism=16, which take precedence over the config file.
+   *
+   * @return header names mapped to their values
+   */
+  @Input
+  public Map<String, String> getHeaderOverrides() {
+    return headerOverrides;
+  }
+
+  /**
+   * Get the GatorGrader revision checks are run with, see
+   * GatorGradleTask.getGatorGraderRevision.
+   *
+   * @return a description of the revision
+   */
+  @Input
+  public String getGatorGraderRevision() {
+    return GatorGradleTask.gatorGraderRevision(header());
+  }
+
+  /**
+   * Get the tools checks run with other than GatorGrader, see
+   * GatorGradleTask.getToolchain.
+   *
+   * @return descriptions of the tools
+   */
+  @Input
+  public List<String> getToolchain() {
+    return GatorGradleTask.toolchain(header());
+  }
+
+  /**
+   * Get the configuration files in the user's home directory that the
+   * executables the checks run could read. Those in the submissions are
+   * already part of them.
+   *
+   * @return the files that exist
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.ABSOLUTE)
+  public FileCollection getToolConfigFiles() {
+    String home = System.getProperty("user.home");
+    ConfigurableFileCollection files = getObjectFactory().fileCollection();
+    if (home != null) {
+      for (String executable : header().getInvokedExecutables()) {
+        files.from(Toolchain.configFiles(executable, new File(home)));
+      }
+    }
+    return files.filter(File::isFile);
+  }
+
+  private GatorGradleConfig header() {
+    if (config == null) {
+      config = GradingSession.readConfig(configFile, compiledConfigFile);
+    }
+    config.parseHeader(headerOverrides);
+    return config;
+  }
+
+  /**
+   * Grade every submission, writing the results of each along with a summary
+   * of them all.
+   */
+  @TaskAction
+  public void gradeAll() {
+    TraceRecorder trace = new TraceRecorder();
+    try {
+      gradeAll(trace);
+    } finally {
+      File traceFile = new File(outputDir, TRACE_FILE);
+      try {
+        trace.write(traceFile);
+      } catch (IOException ex) {
+        Console.error("Failed to write trace to " + traceFile + ": " + ex.getMessage());
+      }
+    }
+  }
+
+  private void gradeAll(TraceRecorder trace) {
+    final List<Submission> submissions = findSubmissions();
+    final GatorGradleConfig config = header();
+    config.setDefaultParallelism(maxWorkers);
+
+    // every submission is graded with the same GatorGrader, so it is only set up once
+    try (GradingSession session = new GradingSession(config, trace)) {
+      session.setUp(headerOverrides);
+      session.parseBody();
+
+      Console.newline(1);
+      Console.log("Grading " + submissions.size() + " submissions, "
+          + config.getParallelism() + " checks at a time");
+
+      ProgressLoggerWrapper progLog =
+          new ProgressLoggerWrapper(this, config.getAssignmentName());
+      progLog.started();
+      session.start(outputDir.toPath().resolve("durations.properties"));
+      // submissions start up alongside the checks of the others
+      for (Submission submission : submissions) {
+        start(submission, config, session, progLog, trace);
+      }
+      for (Submission submission : submissions) {
+        try {
+          trace.time("wait for " + submission.name, "checks", () -> finish(submission));
+        } catch (GradleException ex) {
+          // grading cannot go on, so stop the checks of every submission now
+          session.cancel();
+          throw ex;
+        }
+      }
+      progLog.completed();
+    }
+
+    trace.time("write summary", "report", () -> writeSummary(config, submissions));
+    showSummary(submissions);
+  }
+
+  private List<Submission> findSubmissions() {
+    if (!submissionsDir.isPresent()) {
+      throw new GradleException("No directory of submissions was given! Set it with "
+          + "--submissions or gatorgradle.submissionsDir");
+    }
+    File dir = submissionsDir.get().getAsFile();
+    File[] dirs = dir.listFiles(file -> file.isDirectory() && !file.getName().startsWith("."));
+    if (dirs == null) {
+      throw new GradleException("Submissions directory " + dir + " does not exist!");
+    }
+    return Arrays.stream(dirs).sorted(Comparator.comparing(File::getName))
+        .map(Submission::new).collect(Collectors.toList());
+  }
+
+  /**
+   * Queue the checks of the given submission, after its startup command if
+   * there is one.
+   */
+  private void start(Submission submission, GatorGradleConfig config, GradingSession session,
+      ProgressLoggerWrapper progLog, TraceRecorder trace) {
+    File state = new File(outputDir, submission.name);
+    ResultCache results = null;
+    if (config.shouldCacheResults()) {
+      results = new ResultCache(state.toPath().resolve("results"), submission.dir, config);
+    }
+    // the results of hundreds of submissions would bury the summary
+    CommandOutputSummary summary = new CommandOutputSummary(getLogger(), config).showResults(false);
+    submission.run = new GradingRun(submission.name, config.size(), summary, results,
+        session.getDurations(), progLog, trace);
+
+    for (Command check : config) {
+      submission.checks.add(copyFor(submission, check));
+    }
+    if (config.hasStartupCommand()) {
+      session.queueAfter(submission.run, copyFor(submission, config.getStartupCommand()),
+          submission.name, submission.checks, results);
+    } else {
+      session.queue(submission.run, submission.checks, results);
+    }
+  }
+
+  /**
+   * Create a copy of the given command that runs inside the given submission.
+   */
+  private static BasicCommand copyFor(Submission submission, Command command) {
+    BasicCommand cmd = ((BasicCommand) command).copy();
+    cmd.outputToSysOut(false);
+    File dir = cmd.getWorkingDir();
+    if (dir == null) {
+      cmd.setWorkingDir(submission.dir);
+    } else if (!dir.isAbsolute()) {
+      cmd.setWorkingDir(new File(submission.dir, dir.getPath()));
+    }
+    return cmd;
+  }
+
+  /**
+   * Wait for the checks of the given submission, then write its results.
+   */
+  private void finish(Submission submission) {
+    try {
+      submission.run.awaitCompletion(0);
+    } catch (GradleException ex) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw ex;
+      }
+      // a failed startup, or a failing check that breaks the build early, only
+      // stops its own submission
+      submission.checks.forEach(Command::cancel);
+      submission.error = ex.getMessage();
+    }
+    submission.report = submission.run.getSummary().toReport();
+
+    File dir = new File(outputDir, submission.name);
+    try {
+      submission.report.write(new File(dir, RESULTS_FILE));
+      try (JsonLinesReport stream = new JsonLinesReport(new File(dir, JSON_RESULTS_FILE))) {
+        submission.report.getResults().forEach(stream::write);
+      }
+      new JUnitReport(submission.report).write(new File(dir, JUNIT_FILE));
+    } catch (IOException ex) {
+      throw new GradleException("Failed to write the results of " + submission.name
+          + " to " + dir, ex);
+    }
+
+    if (submission.error != null) {
+      getLogger().lifecycle("{}  {}", StringUtil.color(StringUtil.BAD, submission.name),
+          submission.error);
+    } else {
+      getLogger().lifecycle("{}  Passed {}/{}", StringUtil.color(
+          submission.passed() == submission.total() ? StringUtil.GOOD : StringUtil.BAD,
+          submission.name), submission.passed(), submission.total());
+    }
+  }
+
+  private void writeSummary(GatorGradleConfig config, List<Submission> submissions) {
+    File file = new File(outputDir, SUMMARY_FILE);
+    try {
+      Files.createDirectories(outputDir.toPath());
+      try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+        out.write("{\"assignment\": " + Json.quote(config.getAssignmentName())
+            + ", \"submissions\": [");
+        boolean first = true;
+        for (Submission submission : submissions) {
+          out.write(first ? "\n" : ",\n");
+          out.write("{\"name\": " + Json.quote(submission.name)
+              + ", \"passed\": " + submission.passed()
+              + ", \"total\": " + submission.total()
+              + ", \"error\": "
+              + (submission.error == null ? "null" : Json.quote(submission.error)) + "}");
+          first = false;
+        }
+        out.write("\n]}\n");
+      }
+    } catch (IOException ex) {
+      throw new GradleException("Failed to write the summary of every submission to " + file, ex);
+    }
+  }
+
+  private void showSummary(List<Submission> submissions) {
+    List<Submission> graded = submissions.stream()
+        .filter(submission -> submission.error == null).collect(Collectors.toList());
+    // a submission without any results has not passed anything
+    long perfect = graded.stream().filter(submission -> submission.total() > 0
+        && submission.passed() == submission.total()).count();
+    double average = graded.stream().filter(submission -> submission.total() > 0)
+        .mapToDouble(submission -> submission.passed() * 100.0 / submission.total())
+        .average().orElse(0);
+    boolean allGood = perfect == submissions.size();
+    StringUtil.border("Graded " + submissions.size() + " submissions: " + perfect
+            + " passed every check, " + (submissions.size() - graded.size())
+            + " could not be graded, " + Math.round(average) + "% of checks passed on average",
+        allGood ? StringUtil.GOOD : StringUtil.BAD,
+        allGood ? StringUtil.GOOD : "\u001B[1;35m", getLogger());
+  }
+}
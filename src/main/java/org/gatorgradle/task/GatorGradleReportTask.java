@@ -0,0 +1,49 @@
+package org.gatorgradle.task;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.gatorgradle.display.GradeReport;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Shows the summary of the results written by a {@link GatorGradleTask}, and
+ * breaks the build if configured to. Because this task declares no outputs it
+ * always runs, so the summary is shown even when the grading task itself was
+ * up-to-date.
+ */
+public class GatorGradleReportTask extends DefaultTask {
+  private File resultsFile;
+
+  public void setResultsFile(File file) {
+    this.resultsFile = file;
+  }
+
+  @Internal
+  public File getResultsFile() {
+    return resultsFile;
+  }
+
+  /**
+   * Show the grading summary.
+   */
+  @TaskAction
+  public void report() {
+    if (!resultsFile.exists()) {
+      // grading did not finish, and has already said why
+      getLogger().info("No grading results at {}", resultsFile);
+      return;
+    }
+    GradeReport report;
+    try {
+      report = GradeReport.read(resultsFile);
+    } catch (IOException ex) {
+      throw new GradleException("Failed to read grading results from " + resultsFile, ex);
+    }
+    report.show(getLogger());
+  }
+}
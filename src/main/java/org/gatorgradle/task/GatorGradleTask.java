@@ -2,113 +2,417 @@ package org.gatorgradle.task;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.ObjectStreamException;
-import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javax.inject.Inject;
 
 import org.gatorgradle.GatorGradlePlugin;
 import org.gatorgradle.command.BasicCommand;
 import org.gatorgradle.command.Command;
-import org.gatorgradle.command.GatorGraderCommand;
 import org.gatorgradle.config.GatorGradleConfig;
 import org.gatorgradle.display.CommandOutputSummary;
-import org.gatorgradle.internal.Dependency;
-import org.gatorgradle.internal.DependencyManager;
+import org.gatorgradle.display.GradeReport;
+import org.gatorgradle.display.JUnitReport;
+import org.gatorgradle.display.JsonLinesReport;
 import org.gatorgradle.internal.ProgressLoggerWrapper;
+import org.gatorgradle.internal.ResultCache;
+import org.gatorgradle.internal.Toolchain;
+import org.gatorgradle.internal.TraceRecorder;
 import org.gatorgradle.util.Console;
 
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
-import org.gradle.api.logging.Logger;
+import org.gradle.api.Project;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.tasks.Input;
-import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.workers.IsolationMode;
-import org.gradle.workers.WorkerExecutor;
-
-public class GatorGradleTask extends DefaultTask {
-  // The executor to use to execute the grading
-  private final WorkerExecutor executor;
-
-  private GatorGradleConfig config;
-  private File workingDir;
+import org.gradle.api.tasks.util.PatternSet;
+
+/**
+ * GatorGradleTask runs the checks of a config file against a project. Nothing
+ * about a run is kept outside the task, and the project is only looked at
+ * while the task is configured, so several of these tasks can run at once and
+ * the task works with the configuration cache.
+ */
+public abstract class GatorGradleTask extends DefaultTask {
+  public static final String PROPERTY_PREFIX = "gatorgradle.";
+  // the headers that can be given as -Pgatorgradle.<header>, which only
+  // change how checks are run and reported, never what they check
+  public static final List<String> OVERRIDABLE_HEADERS =
+      Arrays.asList("daemon", "parallelism", "profile");
+
+  private final RegularFileProperty configFile = getProject().getObjects().fileProperty();
+  private final Map<String, String> headerOverrides = propertyOverrides(getProject());
+  // checks run as many at once as Gradle has workers, unless the config says otherwise
+  private final int maxWorkers = getProject().getGradle().getStartParameter().getMaxWorkerCount();
+  private final File buildDir = getProject().getLayout().getBuildDirectory().get().getAsFile();
+  // every task keeps its files apart by default, so tasks can run at the same time
+  private File stateDir = new File(buildDir, "gatorgradle" + File.separator + getName());
+  private File traceFile;
+  private File compiledConfigFile;
+  // not kept by the configuration cache, which reads the config file again instead
+  private transient GatorGradleConfig config;
+  private File workingDir = getProject().getProjectDir();
+  private File resultsFile;
+  private File jsonResultsFile;
+  private File junitFile;
 
+  /**
+   * Get the factory used to create the file collections of this task.
+   *
+   * @return the factory, injected by Gradle
+   */
   @Inject
-  public GatorGradleTask(WorkerExecutor executor) {
-    this.executor = executor;
-  }
+  protected abstract ObjectFactory getObjectFactory();
 
+  /**
+   * Grade with the given config instead of reading one from the config file.
+   *
+   * @param config the config
+   */
   public void setConfig(GatorGradleConfig config) {
     this.config = config;
+    if (config.getConfigFile() != null) {
+      configFile.set(config.getConfigFile().toFile());
+    }
   }
 
-  @Input
+  /**
+   * Get the config this task grades with, which is only read from the config
+   * file the first time it is needed.
+   *
+   * @return the config
+   */
+  @Internal
   public GatorGradleConfig getConfig() {
+    if (config == null) {
+      config = GradingSession.readConfig(configFile, compiledConfigFile);
+    }
     return config;
   }
 
+  /**
+   * Get the config file to grade with. Setting it after the config has been
+   * read has no effect, and it is absent if the config was given directly.
+   *
+   * @return the config file
+   */
+  @InputFile
+  @Optional
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public RegularFileProperty getConfigFile() {
+    return configFile;
+  }
+
+  public void setCompiledConfigFile(File file) {
+    this.compiledConfigFile = file;
+  }
+
+  /**
+   * Get where the parsed config is kept between builds, so an unchanged config
+   * does not have to be parsed again.
+   *
+   * @return the file, or null to always parse the config
+   */
+  @Internal
+  public File getCompiledConfigFile() {
+    return compiledConfigFile;
+  }
+
+  public void setStateDir(File dir) {
+    this.stateDir = dir;
+  }
+
+  /**
+   * Get the directory the results and durations of checks are kept in between
+   * builds. Grading tasks that may run at the same time each need their own.
+   * The output files default to being kept here as well.
+   *
+   * @return the directory, by default build/gatorgradle/ and the name of the task
+   */
+  @Internal
+  public File getStateDir() {
+    return stateDir;
+  }
+
+  public void setTraceFile(File file) {
+    this.traceFile = file;
+  }
+
+  /**
+   * Get the file a timeline of what grading spent its time on is written to.
+   * It describes the last run that graded, which is kept while the task is
+   * up to date.
+   *
+   * @return the file, by default trace.json in the state directory
+   */
+  @OutputFile
+  public File getTraceFile() {
+    return orDefault(traceFile, "trace.json");
+  }
+
   public void setWorkingDir(File dir) {
     this.workingDir = dir;
   }
 
-  @InputDirectory
+  /**
+   * Get the directory checks run in.
+   *
+   * @return the directory, by default the project directory
+   */
+  @Internal
   public File getWorkingDir() {
     return workingDir;
   }
 
-  // because of Java serialization limitations, along with
-  // how gradle implements logging, these must be static
-  private static int totalTasks;
-  private static CommandOutputSummary summary;
+  public void setResultsFile(File file) {
+    this.resultsFile = file;
+  }
+
+  /**
+   * Get the file the results are written to for the report task to show.
+   *
+   * @return the file, by default grade-results.json in the state directory
+   */
+  @OutputFile
+  public File getResultsFile() {
+    return orDefault(resultsFile, "grade-results.json");
+  }
+
+  public void setJsonResultsFile(File file) {
+    this.jsonResultsFile = file;
+  }
+
+  /**
+   * Get the file every check result is streamed to as it completes, as one
+   * JSON object per line.
+   *
+   * @return the file, by default results.jsonl in the state directory
+   */
+  @OutputFile
+  public File getJsonResultsFile() {
+    return orDefault(jsonResultsFile, "results.jsonl");
+  }
+
+  public void setJunitFile(File file) {
+    this.junitFile = file;
+  }
+
+  /**
+   * Get the file the results are written to in the JUnit XML format once every
+   * check has completed.
+   *
+   * @return the file, by default junit/TEST- and the name of the task, in the
+   *         state directory
+   */
+  @OutputFile
+  public File getJunitFile() {
+    return orDefault(junitFile, "junit" + File.separator + "TEST-" + getName() + ".xml");
+  }
+
+  private File orDefault(File file, String name) {
+    return file != null ? file : new File(required(stateDir, "state directory"), name);
+  }
+
+  private File required(File file, String description) {
+    if (file == null) {
+      throw new GradleException("No " + description + " was given to " + getPath() + "!");
+    }
+    return file;
+  }
+
+  /**
+   * Get the GatorGrader revision checks are run with: the requested revision
+   * along with the installation currently checked out for it, see
+   * Toolchain.gatorGrader. Before GatorGrader is first installed this is only
+   * the requested revision, so the build after installing it grades again.
+   *
+   * @return a description of the revision
+   */
+  @Input
+  public String getGatorGraderRevision() {
+    GatorGradleConfig config = getConfig();
+    config.parseHeader(getHeaderOverrides());
+    return gatorGraderRevision(config);
+  }
+
+  static String gatorGraderRevision(GatorGradleConfig config) {
+    return config.getGatorGraderRevision() + "@"
+        + Toolchain.gatorGrader(config.getGatorGraderRevision());
+  }
 
   /**
-   * Static handler to call when a subtask completes.
+   * Get the tools checks run with, other than GatorGrader itself: the Python
+   * interpreter GatorGrader runs in, and each executable the checks run, with
+   * its version for the linters known to report one. Upgrading any of them
+   * makes the task grade again. Versions are remembered between builds, see
+   * Toolchain.describe, so this rarely has to start a process.
    *
-   * @param complete the command that was run
+   * @return descriptions of the tools, see Toolchain.describe
    */
-  private static synchronized void completedTask(Command complete) {
-    summary.addCompletedCommand(complete);
-    // Console.log("FINISHED " + complete.toString());
+  @Input
+  public List<String> getToolchain() {
+    GatorGradleConfig config = getConfig();
+    config.parseHeader(getHeaderOverrides());
+    return toolchain(config);
+  }
 
-    // To break the build if wanted, throw a GradleException here
-    // throw new GradleException(this);
+  static List<String> toolchain(GatorGradleConfig config) {
+    List<String> tools = new ArrayList<>();
+    tools.add("python " + python());
+    for (String executable : new TreeSet<>(config.getInvokedExecutables())) {
+      String description = Toolchain.describe(executable);
+      tools.add(executable + " " + (description == null ? "missing" : description));
+    }
+    return tools;
+  }
+
+  private static String python() {
+    if (GatorGradlePlugin.GATORGRADER_PYTHON == null
+        && !new File(GatorGradlePlugin.GATORGRADER_HOME).isDirectory()) {
+      // nothing is installed yet to ask pipenv about
+      return "not installed";
+    }
+    try {
+      return Toolchain.python();
+    } catch (GradleException ex) {
+      return "not installed";
+    }
   }
 
-  private static synchronized void initTasks(int total, Logger logger) {
-    totalTasks = total;
-    summary = new CommandOutputSummary(logger);
+  /**
+   * Get the configuration files the executables the checks run could read,
+   * such as .mdlrc, whether in the project or the user's home directory.
+   *
+   * @return the files that exist
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.ABSOLUTE)
+  public FileCollection getToolConfigFiles() {
+    GatorGradleConfig config = getConfig();
+    config.parseHeader(getHeaderOverrides());
+    File dir = required(workingDir, "working directory");
+    ConfigurableFileCollection files = getObjectFactory().fileCollection();
+    for (String executable : config.getInvokedExecutables()) {
+      files.from(Toolchain.configFiles(executable, dir));
+    }
+    return files.filter(File::isFile);
   }
 
   /**
-   * Execute the grading checks assigned to this GatorGradleTask.
+   * Get the files the configured checks can look at, as derived from the paths
+   * in the config file.
+   *
+   * @return the files checked
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public FileCollection getCheckedFiles() {
+    GatorGradleConfig config = getConfig();
+    config.parseHeader(getHeaderOverrides());
+    Set<String> paths = config.getInputPaths();
+    File dir = required(workingDir, "working directory");
+    ConfigurableFileCollection files = getObjectFactory().fileCollection();
+    if (paths.contains("")) {
+      // some checks may look at anything in the project
+      files.from(getObjectFactory().fileCollection().from(dir).getAsFileTree()
+          .matching(new PatternSet().exclude(GatorGradleConfig.GIT_DIR + "/**", ".gradle/**",
+              dir.toPath().relativize(buildDir.toPath()) + "/**")));
+      paths.add(GatorGradleConfig.GIT_DIR);
+    }
+    for (String path : paths) {
+      if (GatorGradleConfig.GIT_DIR.equals(path)) {
+        // only what HEAD points at matters, not the rest of the git directory
+        File git = new File(dir, GatorGradleConfig.GIT_DIR);
+        files.from(new File(git, "HEAD"), new File(git, "packed-refs"), new File(git, "refs"));
+      } else if (!path.isEmpty()) {
+        files.from(new File(dir, path));
+      }
+    }
+    return files.filter(File::exists);
+  }
+
+  /**
+   * Get the header values given as project properties, such as
+   * -Pgatorgradle.daemon=true, which take precedence over the config file.
+   * Only the headers in OVERRIDABLE_HEADERS can be given this way.
+   *
+   * @return header names mapped to their values
+   */
+  @Input
+  public Map<String, String> getHeaderOverrides() {
+    return headerOverrides;
+  }
+
+  static Map<String, String> propertyOverrides(Project project) {
+    Map<String, String> overrides = new HashMap<>();
+    for (String header : OVERRIDABLE_HEADERS) {
+      Object value = project.findProperty(PROPERTY_PREFIX + header);
+      if (value != null) {
+        overrides.put(header, value.toString());
+      }
+    }
+    return overrides;
+  }
+
+  /**
+   * Execute the grading checks assigned to this GatorGradleTask, writing their
+   * results to the results file for the report task to show.
    */
   @TaskAction
   public void grade() {
+    File traceFile = getTraceFile();
+    TraceRecorder trace = new TraceRecorder();
+    try {
+      grade(trace);
+    } finally {
+      try {
+        trace.write(traceFile);
+      } catch (IOException ex) {
+        Console.error("Failed to write trace to " + traceFile + ": " + ex.getMessage());
+      }
+    }
+  }
 
-    config.parseHeader();
-
-    // ensure GatorGrader and dependencies are installed
-    for (Dependency dep : Dependency.values()) {
-      if (!DependencyManager.installOrUpdate(dep)) {
-        throw new GradleException(dep.name() + " not installed!");
+  private void grade(TraceRecorder trace) {
+    GatorGradleConfig config = getConfig();
+    config.setDefaultParallelism(maxWorkers);
+    final File dir = required(workingDir, "working directory");
+    // a failed run must not leave the results of an older one behind
+    for (File old : Arrays.asList(getResultsFile(), getJsonResultsFile(), getJunitFile())) {
+      if (old.exists() && !old.delete()) {
+        throw new GradleException("Failed to delete " + old);
       }
     }
 
+    // ensure GatorGrader and dependencies are installed
+    GradingSession session = new GradingSession(config, trace);
+    session.setUp(getHeaderOverrides());
+
     Console.newline(1);
 
     if (config.hasStartupCommand()) {
       Console.log("Starting up...");
       BasicCommand startup = (BasicCommand) config.getStartupCommand();
       startup.outputToSysOut(true);
-      startup.run();
+      trace.time("startup " + startup, "setup", () -> startup.run());
       if (startup.exitValue() != Command.SUCCESS) {
         throw new GradleException(
             "Startup command '" + startup + "' failed with exit code "
@@ -120,63 +424,76 @@ public class GatorGradleTask extends DefaultTask {
 
     Console.newline(2);
 
-    config.parseBody();
-
+    session.parseBody();
 
     // get a progress logger
-    ProgressLoggerWrapper progLog =
-        new ProgressLoggerWrapper(super.getProject(), config.getAssignmentName());
+    ProgressLoggerWrapper progLog = new ProgressLoggerWrapper(this, config.getAssignmentName());
 
     // start task submission
     progLog.started();
-    initTasks(config.size(), this.getLogger());
-
-    if (totalTasks > 0) {
-      // submit commands to executor
-      for (Command cmd : config) {
-        // configure command
-        cmd.setCallback((Command.Callback) GatorGradleTask::completedTask);
-        if (cmd.getWorkingDir() == null) {
-          cmd.setWorkingDir(workingDir);
+    Path state = required(stateDir, "state directory").toPath();
+    final ResultCache results = config.shouldCacheResults()
+        ? new ResultCache(state.resolve("results"), dir, config) : null;
+    JsonLinesReport stream;
+    try {
+      stream = new JsonLinesReport(getJsonResultsFile());
+    } catch (IOException ex) {
+      throw new GradleException("Failed to create " + getJsonResultsFile(), ex);
+    }
+    CommandOutputSummary summary = new CommandOutputSummary(getLogger(), config);
+    summary.streamTo(stream);
+
+    session.start(state.resolve("durations.properties"));
+    GradingRun run = new GradingRun(
+        config.size(), summary, results, session.getDurations(), progLog, trace);
+    try {
+      if (run.getTotal() > 0) {
+        Console.log("Running " + run.getTotal() + " checks, "
+            + config.getParallelism() + " at a time");
+        for (Command cmd : config) {
+          if (cmd.getWorkingDir() == null) {
+            cmd.setWorkingDir(dir);
+          }
         }
-
-        // configure command executor
-        executor.submit(CommandExecutor.class, (conf) -> {
-          conf.setIsolationMode(IsolationMode.NONE);
-          conf.setDisplayName(cmd.toString());
-          conf.setParams(cmd);
-        });
-      }
-
-      int percentComplete = 0;
-      while (percentComplete < 100) {
-        percentComplete = (summary.getNumCompletedTasks() * 100) / totalTasks;
-        progLog.progress("Finished " + summary.getNumCompletedTasks() + " / " + totalTasks
-            + " checks  >  " + percentComplete + "% complete!");
+        session.queue(run, config, results);
         try {
-          Thread.sleep(100);
-        } catch (InterruptedException ex) {
-          Console.error("Failed to sleep");
+          trace.time("wait for checks", "checks",
+              () -> run.awaitCompletion(config.getTotalTimeout()));
+        } catch (GradleException ex) {
+          // nothing else matters once the build fails, so stop all other checks now
+          session.cancel();
+          throw ex;
         }
       }
-
-      // make sure tasks have ended
-      executor.await();
-
-      // this is impossible now because of the for loop above, FIXME
-      if (summary.getNumCompletedTasks() != totalTasks) {
-        // silent failure somewhere, break the build
-        throw new GradleException("Silent failure in task execution! Only completed "
-            + summary.getNumCompletedTasks() + " tasks but should have completed " + totalTasks);
-      }
+    } finally {
+      session.close();
+      close(stream);
     }
 
-    progLog.progress("Finished " + summary.getNumCompletedTasks() + " / " + totalTasks
+    progLog.progress("Finished " + summary.getNumCompletedTasks() + " / " + run.getTotal()
         + " checks  >  100% complete!  >  Compiling Report...");
 
     // complete task submission
     progLog.completed();
 
-    summary.showOutputSummary();
+    GradeReport report = trace.time("compile report", "report", summary::toReport);
+    try {
+      report.write(getResultsFile());
+    } catch (IOException ex) {
+      throw new GradleException("Failed to write grading results to " + getResultsFile(), ex);
+    }
+    try {
+      new JUnitReport(report).write(getJunitFile());
+    } catch (IOException ex) {
+      throw new GradleException("Failed to write JUnit report to " + getJunitFile(), ex);
+    }
+  }
+
+  private static void close(JsonLinesReport stream) {
+    try {
+      stream.close();
+    } catch (IOException ex) {
+      Console.error("Failed to close streamed results: " + ex.getMessage());
+    }
   }
 }
@@ -0,0 +1,184 @@
+package org.gatorgradle.task;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.display.CommandOutputSummary;
+import org.gatorgradle.internal.CheckDurations;
+import org.gatorgradle.internal.ProgressLoggerWrapper;
+import org.gatorgradle.internal.ResultCache;
+import org.gatorgradle.internal.TraceRecorder;
+
+import org.gradle.api.GradleException;
+
+/**
+ * GradingRun keeps track of the checks of one run of a {@link GatorGradleTask}
+ * as they complete. Every run has its own, so grading tasks can run at the same
+ * time in one build, or in one Gradle daemon, without seeing each other's checks.
+ */
+class GradingRun {
+  private final String label;
+  private final int total;
+  private final CommandOutputSummary summary;
+  private final ResultCache cache;
+  private final Map<Command, String> cacheKeys = new ConcurrentHashMap<>();
+  private final CheckDurations durations;
+  private final ProgressLoggerWrapper progress;
+  private final TraceRecorder tracer;
+  private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+  GradingRun(int total, CommandOutputSummary summary, ResultCache cache,
+      CheckDurations durations, ProgressLoggerWrapper progress, TraceRecorder tracer) {
+    this(null, total, summary, cache, durations, progress, tracer);
+  }
+
+  /**
+   * Create a run that shares its progress logger with other runs, so its
+   * progress is shown under its name.
+   */
+  GradingRun(String name, int total, CommandOutputSummary summary, ResultCache cache,
+      CheckDurations durations, ProgressLoggerWrapper progress, TraceRecorder tracer) {
+    this.label = name == null ? "" : name + "  >  ";
+    this.total = total;
+    this.summary = summary;
+    this.cache = cache;
+    this.durations = durations;
+    this.progress = progress;
+    this.tracer = tracer;
+  }
+
+  int getTotal() {
+    return total;
+  }
+
+  CommandOutputSummary getSummary() {
+    return summary;
+  }
+
+  /**
+   * Remember the result cache key of a check that is about to run, so its
+   * result can be stored once it completes.
+   *
+   * @param cmd the check
+   * @param key its key in the result cache
+   */
+  void cacheAs(Command cmd, String key) {
+    cacheKeys.put(cmd, key);
+  }
+
+  /**
+   * Handler to call when a check completes. Called concurrently from every
+   * thread running checks, so everything it touches must be thread-safe.
+   *
+   * @param complete the command that was run
+   */
+  void completed(Command complete) {
+    if (complete.cancelled()) {
+      // the build is already failing, a killed check has nothing to report
+      return;
+    }
+    String key = cacheKeys.remove(complete);
+    // commands that could not even be started or finished are not worth remembering
+    if (key != null && complete.exitValue() != BasicCommand.FAILED_TO_START
+        && !((BasicCommand) complete).timedOut()) {
+      cache.store((BasicCommand) complete, key);
+    }
+    durations.record(complete);
+    trace((BasicCommand) complete);
+    int completed;
+    try {
+      completed = summary.addCompletedCommand(complete);
+    } catch (RuntimeException ex) {
+      // fastfail breaks the build from here, so stop waiting on the other checks
+      completion.completeExceptionally(ex);
+      throw ex;
+    }
+
+    synchronized (progress) {
+      progress.progress(label + "Finished " + completed + " / " + total
+          + " checks  >  " + (completed * 100) / total + "% complete!");
+    }
+    if (completed >= total) {
+      completion.complete(null);
+    }
+  }
+
+  private void trace(BasicCommand cmd) {
+    if (cmd.getDuration() < 0) {
+      // restored from the cache, nothing ran
+      return;
+    }
+    long thread = Thread.currentThread().getId();
+    String name = cmd.toString();
+    tracer.record("queued " + name, "queue", cmd.getQueuedAt(), cmd.getStartedAt(), thread);
+    tracer.record("spawn " + name, "spawn", cmd.getStartedAt(), cmd.getSpawnedAt(), thread);
+    tracer.record(name, "check", cmd.getSpawnedAt(), cmd.getFinishedAt(), thread);
+  }
+
+  /**
+   * Handler to call when a check could not run to completion.
+   *
+   * @param failed the command that was being run
+   * @param cause  what went wrong
+   */
+  void failed(Command failed, Throwable cause) {
+    completion.completeExceptionally(
+        new GradleException("Failed to run check '" + failed + "'!", cause));
+  }
+
+  /**
+   * Handler to call when something the checks depend on failed, such as the
+   * startup command, so the run ends with the given error.
+   *
+   * @param error what went wrong
+   */
+  void abort(GradleException error) {
+    completion.completeExceptionally(error);
+  }
+
+  /**
+   * Handler to call once every check has been queued, which completes a run
+   * without any.
+   */
+  void queued() {
+    if (total == 0) {
+      completion.complete(null);
+    }
+  }
+
+  /**
+   * Block until every check has completed or one of them failed the build. A
+   * run that completed prunes its result cache of entries it no longer uses.
+   *
+   * @param timeout how long to wait in milliseconds, or 0 to wait for as long as it takes
+   */
+  void awaitCompletion(long timeout) {
+    try {
+      if (timeout > 0) {
+        completion.get(timeout, TimeUnit.MILLISECONDS);
+      } else {
+        completion.get();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new GradleException("Interrupted while waiting for checks to complete!", ex);
+    } catch (TimeoutException ex) {
+      throw new GradleException("Checks did not complete within the total timeout of "
+          + timeout / 1000.0 + " seconds!", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof GradleException) {
+        throw (GradleException) ex.getCause();
+      }
+      throw new GradleException("Check execution failed!", ex.getCause());
+    }
+    if (cache != null) {
+      cache.prune();
+    }
+  }
+}
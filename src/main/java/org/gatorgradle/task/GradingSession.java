@@ -0,0 +1,209 @@
+package org.gatorgradle.task;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.gatorgradle.command.GatorGraderCommand;
+import org.gatorgradle.config.GatorGradleConfig;
+import org.gatorgradle.internal.CheckDurations;
+import org.gatorgradle.internal.CheckScheduler;
+import org.gatorgradle.internal.Dependency;
+import org.gatorgradle.internal.DependencyManager;
+import org.gatorgradle.internal.GatorGraderBatch;
+import org.gatorgradle.internal.ResultCache;
+import org.gatorgradle.internal.TraceRecorder;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.RegularFileProperty;
+
+/**
+ * GradingSession sets up GatorGrader and runs checks for one run of a grading
+ * task: it parses the config, installs what the checks need, and queues them,
+ * along with any startup command, on one scheduler and one pool of GatorGrader
+ * interpreters. Checks that are still cached report their result as soon as
+ * they are queued.
+ */
+class GradingSession implements AutoCloseable {
+  private final GatorGradleConfig config;
+  private final TraceRecorder trace;
+  // every command queued, so all of them can be cancelled at once
+  private final Collection<Command> queued = new ConcurrentLinkedQueue<>();
+  private CheckDurations durations;
+  private GatorGraderBatch batch;
+  private CheckScheduler scheduler;
+
+  GradingSession(GatorGradleConfig config, TraceRecorder trace) {
+    this.config = config;
+    this.trace = trace;
+  }
+
+  /**
+   * Read the given config file, or the compiled form of it if that is up to date.
+   *
+   * @param  configFile         the config file
+   * @param  compiledConfigFile where the parsed config is kept, or null to always parse it
+   * @return                    the config
+   */
+  static GatorGradleConfig readConfig(RegularFileProperty configFile, File compiledConfigFile) {
+    if (!configFile.isPresent()) {
+      throw new GradleException("No GatorGradle config file was given!");
+    }
+    File file = configFile.get().getAsFile();
+    if (!file.isFile()) {
+      throw new GradleException("GatorGradle config file " + file + " does not exist!");
+    }
+    return GatorGradleConfig.create(file.toPath(),
+        compiledConfigFile == null ? null : compiledConfigFile.toPath());
+  }
+
+  /**
+   * Parse the header of the config and make sure GatorGrader and the other
+   * dependencies are installed.
+   *
+   * @param overrides header values that take precedence over the config file
+   */
+  void setUp(Map<String, String> overrides) {
+    trace.time("parse header", "config", () -> config.parseHeader(overrides));
+    List<Dependency> missing = trace.time("install or update dependencies", "setup",
+        () -> DependencyManager.installOrUpdate(
+            DependencyManager.required(), config.getGatorGraderRevision()));
+    if (!missing.isEmpty()) {
+      throw new GradleException(missing.stream().map(Dependency::name)
+          .collect(Collectors.joining(", ")) + " not installed!");
+    }
+  }
+
+  void parseBody() {
+    trace.time("parse body", "config", config::parseBody);
+  }
+
+  /**
+   * Start the threads checks run on, timing them with the durations kept in
+   * the given file. Only call this once the header has been parsed, and close
+   * the session once it has been started.
+   *
+   * @param durationsFile where the durations of checks are kept between builds
+   */
+  void start(Path durationsFile) {
+    durations = new CheckDurations(durationsFile, config);
+    batch = new GatorGraderBatch();
+    scheduler = new CheckScheduler(config.getParallelism());
+  }
+
+  CheckDurations getDurations() {
+    return durations;
+  }
+
+  /**
+   * Queue the given checks of a run, slowest first. Checks with a result in
+   * the given cache report it right away instead.
+   *
+   * @param run     the run the checks belong to
+   * @param checks  the checks, which must already have a working directory if they need one
+   * @param results the result cache, or null to run every check
+   */
+  void queue(GradingRun run, Iterable<? extends Command> checks, ResultCache results) {
+    List<Command> pending = new ArrayList<>();
+    for (Command cmd : checks) {
+      cmd.setCallback(run::completed);
+      if (cmd instanceof GatorGraderCommand) {
+        ((GatorGraderCommand) cmd).batch(batch);
+      }
+      queued.add(cmd);
+
+      // unchanged checks report their previous result right away
+      String key = results == null ? null
+          : trace.time("cache lookup " + cmd, "cache", () -> results.key(cmd));
+      if (key != null) {
+        if (trace.time("cache restore " + cmd, "cache",
+            () -> results.restore((BasicCommand) cmd, key))) {
+          continue;
+        }
+        run.cacheAs(cmd, key);
+      }
+      pending.add(cmd);
+    }
+
+    // starting the slowest checks first keeps them from finishing last; each
+    // check's duration is looked up once rather than on every comparison
+    Map<Command, Long> expected = new IdentityHashMap<>();
+    pending.forEach(cmd -> expected.put(cmd, durations.expected(cmd)));
+    pending.sort(Comparator.comparing(expected::get, Comparator.reverseOrder()));
+    pending.forEach(cmd -> {
+      ((BasicCommand) cmd).markQueued();
+      scheduler.submit(new CommandExecutor(cmd, run::failed));
+    });
+    run.queued();
+  }
+
+  /**
+   * Run the given startup command on the scheduler, and queue the given checks
+   * once it succeeds. If it fails, the run is aborted instead.
+   *
+   * @param run     the run the checks belong to
+   * @param startup the startup command
+   * @param name    what the startup command is shown as in the trace
+   * @param checks  the checks to queue after it
+   * @param results the result cache, or null to run every check
+   */
+  void queueAfter(GradingRun run, BasicCommand startup, String name,
+      Iterable<? extends Command> checks, ResultCache results) {
+    queued.add(startup);
+    scheduler.submit(() -> {
+      try {
+        trace.time("startup " + name, "setup", () -> startup.run());
+        if (startup.exitValue() != Command.SUCCESS) {
+          run.abort(new GradleException("Startup command '" + startup
+              + "' failed with exit code " + startup.exitValue() + "!"));
+          return;
+        }
+        queue(run, checks, results);
+      } catch (RuntimeException ex) {
+        run.abort(new GradleException("Failed to start up for '" + startup + "'!", ex));
+      }
+    });
+  }
+
+  /**
+   * Stop every check queued in this session, whether it already started or not.
+   */
+  void cancel() {
+    if (scheduler != null) {
+      scheduler.cancel();
+    }
+    queued.forEach(Command::cancel);
+    if (batch != null) {
+      batch.close();
+    }
+  }
+
+  /**
+   * Wait for the checks still running, then shut down the interpreters they
+   * ran in and save how long they took.
+   */
+  @Override
+  public void close() {
+    try {
+      if (scheduler != null) {
+        scheduler.close();
+      }
+    } finally {
+      if (batch != null) {
+        batch.close();
+      }
+      if (durations != null) {
+        durations.save();
+      }
+    }
+  }
+}
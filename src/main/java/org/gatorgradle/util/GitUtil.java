@@ -0,0 +1,146 @@
+package org.gatorgradle.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * GitUtil reads a repository's refs straight from its .git directory, which is
+ * much cheaper than asking the git executable.
+ */
+public class GitUtil {
+  private static final String REF_PREFIX = "ref:";
+  private static final String HEADS_PREFIX = "refs/heads/";
+  private static final String TAGS_PREFIX = "refs/tags/";
+
+  /**
+   * Find the .git directory of the repository at the given path.
+   *
+   * @param  repo the working directory of the repository
+   * @return      the .git directory, or null if there is none
+   */
+  public static Path gitDir(File repo) {
+    Path git = repo.toPath().resolve(".git");
+    try {
+      if (Files.isRegularFile(git)) {
+        // worktrees and submodules point at their real git directory
+        String pointer = new String(Files.readAllBytes(git), StandardCharsets.UTF_8).trim();
+        if (pointer.startsWith("gitdir:")) {
+          return repo.toPath().resolve(pointer.substring("gitdir:".length()).trim());
+        }
+        return null;
+      }
+    } catch (IOException ex) {
+      return null;
+    }
+    return Files.isDirectory(git) ? git : null;
+  }
+
+  /**
+   * Resolve the commit currently checked out in the repository at the given path.
+   *
+   * @param  repo the working directory of the repository
+   * @return      the full commit hash, or null if it could not be resolved
+   */
+  public static String head(File repo) {
+    Path git = gitDir(repo);
+    if (git == null) {
+      return null;
+    }
+    try {
+      String head = read(git.resolve("HEAD"));
+      if (head != null && head.startsWith(REF_PREFIX)) {
+        return resolve(git, head.substring(REF_PREFIX.length()).trim());
+      }
+      return head;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Find the branch currently checked out in the repository at the given path.
+   *
+   * @param  repo the working directory of the repository
+   * @return      the branch name, or null if HEAD is detached or unreadable
+   */
+  public static String branch(File repo) {
+    Path git = gitDir(repo);
+    if (git == null) {
+      return null;
+    }
+    try {
+      String head = read(git.resolve("HEAD"));
+      if (head != null && head.startsWith(REF_PREFIX)) {
+        String ref = head.substring(REF_PREFIX.length()).trim();
+        return ref.startsWith(HEADS_PREFIX) ? ref.substring(HEADS_PREFIX.length()) : ref;
+      }
+      return null;
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Check whether the repository at the given path has the given tag.
+   *
+   * @param  repo the working directory of the repository
+   * @param  tag  the name of the tag
+   * @return      true if the tag exists locally
+   */
+  public static boolean hasTag(File repo, String tag) {
+    Path git = gitDir(repo);
+    try {
+      return git != null && resolve(git, TAGS_PREFIX + tag) != null;
+    } catch (IOException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Check whether the given revision looks like an abbreviated or full commit hash.
+   *
+   * @param  revision the revision to check
+   * @return          true if it is a commit hash
+   */
+  public static boolean isCommitHash(String revision) {
+    return revision.matches("[0-9a-fA-F]{7,40}");
+  }
+
+  /**
+   * Resolve the given fully-qualified ref, such as refs/heads/master.
+   *
+   * @param  git the .git directory of the repository
+   * @param  ref the ref to resolve
+   * @return     the commit hash the ref points to, or null if it does not exist
+   * @throws IOException if the ref files could not be read
+   */
+  public static String resolve(Path git, String ref) throws IOException {
+    String loose = read(git.resolve(ref));
+    if (loose != null) {
+      return loose;
+    }
+    Path packed = git.resolve("packed-refs");
+    if (!Files.isRegularFile(packed)) {
+      return null;
+    }
+    List<String> lines = Files.readAllLines(packed, StandardCharsets.UTF_8);
+    for (String line : lines) {
+      int space = line.indexOf(' ');
+      if (space > 0 && !line.startsWith("#") && line.substring(space + 1).equals(ref)) {
+        return line.substring(0, space);
+      }
+    }
+    return null;
+  }
+
+  private static String read(Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+  }
+}
@@ -0,0 +1,81 @@
+package org.gatorgradle.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class HashUtil {
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * Create a new SHA-256 digest.
+   *
+   * @return the digest
+   */
+  public static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Hash the given bytes.
+   *
+   * @param  bytes the bytes to hash
+   * @return       the SHA-256 hash as a hex string
+   */
+  public static String sha256(byte[] bytes) {
+    return hex(digest().digest(bytes));
+  }
+
+  /**
+   * Hash the given string, encoded as UTF-8.
+   *
+   * @param  str the string to hash
+   * @return     the SHA-256 hash as a hex string
+   */
+  public static String sha256(String str) {
+    return sha256(str.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Hash the contents of the given file.
+   *
+   * @param  file the file to hash
+   * @return      the SHA-256 hash as a hex string
+   * @throws IOException if the file could not be read
+   */
+  public static String sha256(Path file) throws IOException {
+    MessageDigest digest = digest();
+    byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) >= 0) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return hex(digest.digest());
+  }
+
+  /**
+   * Convert the given bytes to a lowercase hex string.
+   *
+   * @param  bytes the bytes to convert
+   * @return       a hex string
+   */
+  public static String hex(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+    }
+    return new String(chars);
+  }
+}
@@ -0,0 +1,382 @@
+package org.gatorgradle.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json provides the small amount of JSON support GatorGradle needs to talk to
+ * its Python helpers and read GatorGrader's results: quoting strings and
+ * reading JSON objects in a single pass over the text.
+ */
+public class Json {
+  private final String text;
+  private int pos;
+
+  private Json(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Quote and escape the given string as a JSON string literal.
+   *
+   * @param  str the string to quote
+   * @return     the JSON string literal
+   */
+  public static String quote(String str) {
+    StringBuilder builder = new StringBuilder(str.length() + 2);
+    builder.append('"');
+    for (int i = 0; i < str.length(); i++) {
+      char chr = str.charAt(i);
+      switch (chr) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (chr < 0x20) {
+            builder.append(String.format("\\u%04x", (int) chr));
+          } else {
+            builder.append(chr);
+          }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  /**
+   * Quote every string in the list and join them into a JSON array.
+   *
+   * @param  strs the strings to quote
+   * @return      the JSON array
+   */
+  public static String array(List<String> strs) {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < strs.size(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(quote(strs.get(i)));
+    }
+    return builder.append(']').toString();
+  }
+
+  /**
+   * Parse a JSON object into a map. Nested objects become maps, arrays become
+   * lists, numbers become longs or doubles, and literals become booleans or null.
+   *
+   * @param  text the JSON text to parse
+   * @return      the parsed object
+   * @throws IllegalArgumentException if the text is not a valid JSON object
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> parseObject(String text) {
+    Json json = new Json(text);
+    json.skipWhitespace();
+    if (json.peek() != '{') {
+      throw json.error("Expected '{'");
+    }
+    Map<String, Object> obj = (Map<String, Object>) json.readValue();
+    json.skipWhitespace();
+    if (json.pos < text.length()) {
+      throw json.error("Unexpected trailing text");
+    }
+    return obj;
+  }
+
+  /**
+   * Read the given fields of every JSON object in the given text, in order.
+   * Anything around the objects that does not parse as one, such as log output
+   * printed before a result, is skipped, even when it holds braces of its own.
+   * Only the values of the given fields are built; the rest are skipped over.
+   *
+   * @param  text   the text to read
+   * @param  fields the names of the fields to read
+   * @return        the values of the fields of each object, in the order the fields
+   *                were given, with null for fields an object does not have
+   */
+  public static List<Object[]> readObjects(String text, String... fields) {
+    List<Object[]> objects = new ArrayList<>();
+    Json json = new Json(text);
+    int start = text.indexOf('{');
+    while (start >= 0) {
+      json.pos = start;
+      try {
+        objects.add(json.readFields(fields));
+        start = text.indexOf('{', json.pos);
+      } catch (IllegalArgumentException ex) {
+        // not an object after all, try the next brace
+        start = text.indexOf('{', start + 1);
+      }
+    }
+    return objects;
+  }
+
+  private Object[] readFields(String[] fields) {
+    Object[] values = new Object[fields.length];
+    expect('{');
+    skipWhitespace();
+    if (peek() == '}') {
+      pos++;
+      return values;
+    }
+    while (true) {
+      skipWhitespace();
+      String key = readString();
+      skipWhitespace();
+      expect(':');
+      int field = Arrays.asList(fields).indexOf(key);
+      if (field >= 0) {
+        values[field] = readValue();
+      } else {
+        skipValue();
+      }
+      skipWhitespace();
+      if (peek() == ',') {
+        pos++;
+      } else {
+        expect('}');
+        return values;
+      }
+    }
+  }
+
+  private void skipValue() {
+    skipWhitespace();
+    char chr = peek();
+    if (chr == '"') {
+      skipString();
+    } else if (chr == '{' || chr == '[') {
+      char close = chr == '{' ? '}' : ']';
+      pos++;
+      skipWhitespace();
+      if (peek() == close) {
+        pos++;
+        return;
+      }
+      while (true) {
+        if (close == '}') {
+          skipWhitespace();
+          skipString();
+          skipWhitespace();
+          expect(':');
+        }
+        skipValue();
+        skipWhitespace();
+        if (peek() == ',') {
+          pos++;
+        } else {
+          expect(close);
+          return;
+        }
+      }
+    } else {
+      readValue();
+    }
+  }
+
+  private void skipString() {
+    expect('"');
+    while (true) {
+      char chr = next();
+      if (chr == '"') {
+        return;
+      } else if (chr == '\\') {
+        next();
+      }
+    }
+  }
+
+  private Object readValue() {
+    skipWhitespace();
+    char chr = peek();
+    switch (chr) {
+      case '{':
+        return readObject();
+      case '[':
+        return readArray();
+      case '"':
+        return readString();
+      case 't':
+        return readLiteral("true", Boolean.TRUE);
+      case 'f':
+        return readLiteral("false", Boolean.FALSE);
+      case 'n':
+        return readLiteral("null", null);
+      default:
+        if (chr == '-' || Character.isDigit(chr)) {
+          return readNumber();
+        }
+        throw error("Unexpected character '" + chr + "'");
+    }
+  }
+
+  private Map<String, Object> readObject() {
+    Map<String, Object> obj = new LinkedHashMap<>();
+    expect('{');
+    skipWhitespace();
+    if (peek() == '}') {
+      pos++;
+      return obj;
+    }
+    while (true) {
+      skipWhitespace();
+      String key = readString();
+      skipWhitespace();
+      expect(':');
+      obj.put(key, readValue());
+      skipWhitespace();
+      if (peek() == ',') {
+        pos++;
+      } else {
+        expect('}');
+        return obj;
+      }
+    }
+  }
+
+  private List<Object> readArray() {
+    List<Object> arr = new ArrayList<>();
+    expect('[');
+    skipWhitespace();
+    if (peek() == ']') {
+      pos++;
+      return arr;
+    }
+    while (true) {
+      arr.add(readValue());
+      skipWhitespace();
+      if (peek() == ',') {
+        pos++;
+      } else {
+        expect(']');
+        return arr;
+      }
+    }
+  }
+
+  private String readString() {
+    expect('"');
+    // most strings have no escapes and can be cut straight out of the text
+    int end = pos;
+    while (end < text.length() && text.charAt(end) != '"' && text.charAt(end) != '\\') {
+      end++;
+    }
+    if (end < text.length() && text.charAt(end) == '"') {
+      String str = text.substring(pos, end);
+      pos = end + 1;
+      return str;
+    }
+
+    StringBuilder builder = new StringBuilder(text.substring(pos, end));
+    pos = end;
+    while (true) {
+      char chr = next();
+      if (chr == '"') {
+        return builder.toString();
+      } else if (chr != '\\') {
+        builder.append(chr);
+        continue;
+      }
+      char esc = next();
+      switch (esc) {
+        case 'n':
+          builder.append('\n');
+          break;
+        case 'r':
+          builder.append('\r');
+          break;
+        case 't':
+          builder.append('\t');
+          break;
+        case 'b':
+          builder.append('\b');
+          break;
+        case 'f':
+          builder.append('\f');
+          break;
+        case 'u':
+          if (pos + 4 > text.length()) {
+            throw error("Truncated unicode escape");
+          }
+          try {
+            builder.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+          } catch (NumberFormatException ex) {
+            throw error("Invalid unicode escape");
+          }
+          pos += 4;
+          break;
+        default:
+          // covers \" \\ and \/
+          builder.append(esc);
+      }
+    }
+  }
+
+  private Object readNumber() {
+    int start = pos;
+    while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+      pos++;
+    }
+    String num = text.substring(start, pos);
+    try {
+      if (num.contains(".") || num.contains("e") || num.contains("E")) {
+        return Double.parseDouble(num);
+      }
+      return Long.parseLong(num);
+    } catch (NumberFormatException ex) {
+      throw error("Invalid number '" + num + "'");
+    }
+  }
+
+  private Object readLiteral(String literal, Object value) {
+    if (!text.startsWith(literal, pos)) {
+      throw error("Expected '" + literal + "'");
+    }
+    pos += literal.length();
+    return value;
+  }
+
+  private void skipWhitespace() {
+    while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private char peek() {
+    if (pos >= text.length()) {
+      throw error("Unexpected end of text");
+    }
+    return text.charAt(pos);
+  }
+
+  private char next() {
+    char chr = peek();
+    pos++;
+    return chr;
+  }
+
+  private void expect(char chr) {
+    if (next() != chr) {
+      pos--;
+      throw error("Expected '" + chr + "'");
+    }
+  }
+
+  private IllegalArgumentException error(String reason) {
+    return new IllegalArgumentException(reason + " at position " + pos + " of JSON text");
+  }
+}
@@ -0,0 +1,59 @@
+package org.gatorgradle.util;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * ProcessUtil helps stop processes along with everything they started. On Java 9
+ * and later the descendants of a process are found through ProcessHandle, which
+ * is looked up reflectively so the plugin still runs on Java 8, where only the
+ * process itself can be destroyed.
+ */
+public class ProcessUtil {
+  private static final Method DESCENDANTS = lookup(Process.class, "descendants");
+  private static final Method DESTROY_HANDLE = lookup(handleClass(), "destroyForcibly");
+
+  private static Class<?> handleClass() {
+    try {
+      return Class.forName("java.lang.ProcessHandle");
+    } catch (ClassNotFoundException ex) {
+      return null;
+    }
+  }
+
+  private static Method lookup(Class<?> type, String name) {
+    if (type == null) {
+      return null;
+    }
+    try {
+      return type.getMethod(name);
+    } catch (NoSuchMethodException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Forcibly destroy the given process and all of its descendants.
+   *
+   * @param proc the process to destroy
+   */
+  public static void destroyTree(Process proc) {
+    if (proc == null) {
+      return;
+    }
+    if (DESCENDANTS != null && DESTROY_HANDLE != null) {
+      try {
+        // children first, so they cannot be re-parented and escape
+        Stream<?> descendants = (Stream<?>) DESCENDANTS.invoke(proc);
+        Iterator<?> iter = descendants.iterator();
+        while (iter.hasNext()) {
+          DESTROY_HANDLE.invoke(iter.next());
+        }
+      } catch (ReflectiveOperationException | RuntimeException ex) {
+        Console.error("Failed to stop the processes started by a check: " + ex);
+      }
+    }
+    proc.destroyForcibly();
+  }
+}
@@ -75,6 +75,33 @@ public class StringUtil {
     return spc.toString();
   }
 
+  /**
+   * Shortens a string to the given length by dropping characters from its
+   * middle, keeping its beginning and end, as a command's output is kept.
+   *
+   * @param  str   the string to shorten
+   * @param  limit the maximum number of characters to keep
+   * @return       the string, with a note of how much was dropped if it was too long
+   */
+  public static String truncateMiddle(String str, int limit) {
+    if (str == null || str.length() <= limit) {
+      return str;
+    }
+    int tail = limit / 2;
+    return str.substring(0, limit - tail) + omitted(str.length() - limit)
+        + str.substring(str.length() - tail);
+  }
+
+  /**
+   * Describe how many characters of output were dropped.
+   *
+   * @param  count the number of characters dropped
+   * @return       the note to put where they were
+   */
+  public static String omitted(long count) {
+    return "\n... " + count + " characters of output omitted ...\n";
+  }
+
   /**
    * Print a string with a border around it.
    *
@@ -0,0 +1,205 @@
+"""Run many GatorGrader checks inside a single Python interpreter.
+
+GatorGradle starts this driver with the path to a GatorGrader installation as
+its only argument. The driver imports GatorGrader once, then reads one JSON
+request per line from standard input, formatted like
+
+    {"cwd": "/path/to/project", "args": ["--nowelcome", "--json", ...]}
+
+For each request it runs gatorgrader.py with the given arguments in the given
+directory and writes one JSON response per line to standard output, formatted
+like
+
+    {"exit": 0, "output": "..."}
+
+where output is everything the check printed. The driver exits when standard
+input is closed.
+
+When started with the extra arguments "--serve STATE_FILE IDLE_SECONDS", the
+driver instead runs as a daemon that listens on a localhost port. It writes the
+port and a secret token to STATE_FILE, answers one request per connection
+(requests must carry the token), and exits after IDLE_SECONDS without any
+connections. Daemon requests may also carry a "timeout" in seconds; a check
+still running after that long is stopped, and answered with
+
+    {"exit": 124, "output": "", "timedOut": true}
+"""
+
+import contextlib
+import io
+import json
+import os
+import secrets
+import signal
+import socket
+import sys
+import traceback
+
+
+class CheckTimeout(BaseException):
+    """Raised in a check that ran past its timeout."""
+
+
+def load(home):
+    """Compile gatorgrader.py and import the modules it depends on."""
+    script = os.path.join(home, "gatorgrader.py")
+    sys.path.insert(0, home)
+    with open(script) as source:
+        code = compile(source.read(), script, "exec")
+    # running the script under a name other than __main__ only performs its
+    # imports, which is where nearly all of GatorGrader's startup time goes
+    exec(code, {"__name__": "gatorgradle_preload", "__file__": script})
+    return script, code
+
+
+def reset():
+    """Clear any results GatorGrader collected during a previous check."""
+    report = sys.modules.get("gator.report")
+    if report is not None and hasattr(report, "reset"):
+        report.reset()
+
+
+def run(script, code, cwd, args):
+    """Run one check, returning its exit code and everything it printed."""
+    output = io.StringIO()
+    exit_code = 0
+    os.chdir(cwd)
+    sys.argv = [script] + args
+    reset()
+    with contextlib.redirect_stdout(output), contextlib.redirect_stderr(output):
+        try:
+            exec(code, {"__name__": "__main__", "__file__": script})
+        except SystemExit as system_exit:
+            if system_exit.code is None:
+                exit_code = 0
+            elif isinstance(system_exit.code, int):
+                exit_code = system_exit.code
+            else:
+                print(system_exit.code)
+                exit_code = 1
+        except CheckTimeout:
+            raise
+        except BaseException:  # pylint: disable=broad-except
+            traceback.print_exc()
+            exit_code = 1
+    return exit_code, output.getvalue()
+
+
+def serve(script, code, requests, responses):
+    """Answer requests, one JSON line each, until the input is closed."""
+    for line in requests:
+        if not line.strip():
+            continue
+        request = json.loads(line)
+        exit_code, output = run(script, code, request["cwd"], request["args"])
+        responses.write(json.dumps({"exit": exit_code, "output": output}) + "\n")
+        responses.flush()
+
+
+def write_state(state_file, state):
+    """Atomically write the state file, readable only by the current user."""
+    temporary = state_file + ".tmp"
+    descriptor = os.open(temporary, os.O_WRONLY | os.O_CREAT | os.O_TRUNC, 0o600)
+    with os.fdopen(descriptor, "w") as state_output:
+        json.dump(state, state_output)
+    os.replace(temporary, state_file)
+
+
+def stop_check(signum, frame):
+    """Stop the running check, see handle."""
+    raise CheckTimeout()
+
+
+def handle(connection, token, script, code, forked):
+    """Answer the single request sent over the given connection.
+
+    In a forked child, a check with a timeout is stopped by a timer signal once
+    the timeout passes; otherwise GatorGradle gives up waiting for it.
+    """
+    connection.settimeout(None)
+    with connection, connection.makefile("rw", encoding="utf-8", newline="\n") as stream:
+        line = stream.readline()
+        if not line.strip():
+            # GatorGradle connects without a request to see if the daemon is up
+            return
+        request = json.loads(line)
+        timeout = request.get("timeout") or 0
+        if request.get("token") != token:
+            response = {"exit": 127, "output": "Rejected request with a bad token"}
+        else:
+            if forked and timeout > 0 and hasattr(signal, "setitimer"):
+                signal.signal(signal.SIGALRM, stop_check)
+                signal.setitimer(signal.ITIMER_REAL, timeout)
+            try:
+                exit_code, output = run(script, code, request["cwd"], request["args"])
+                response = {"exit": exit_code, "output": output}
+            except CheckTimeout:
+                response = {"exit": 124, "output": "", "timedOut": True}
+            finally:
+                if forked and hasattr(signal, "setitimer"):
+                    signal.setitimer(signal.ITIMER_REAL, 0)
+        stream.write(json.dumps(response) + "\n")
+        stream.flush()
+
+
+def reap(children):
+    """Forget about any forked children that have finished."""
+    for child in list(children):
+        finished, _ = os.waitpid(child, os.WNOHANG)
+        if finished:
+            children.discard(child)
+
+
+def daemon(script, code, state_file, idle_seconds):
+    """Serve requests over a localhost socket until idle for too long."""
+    token = secrets.token_hex(16)
+    server = socket.socket(socket.AF_INET, socket.SOCK_STREAM)
+    server.bind(("127.0.0.1", 0))
+    server.listen(64)
+    server.settimeout(idle_seconds)
+    write_state(
+        state_file, {"port": server.getsockname()[1], "token": token, "pid": os.getpid()}
+    )
+    children = set()
+    try:
+        while True:
+            try:
+                connection, _ = server.accept()
+            except socket.timeout:
+                reap(children)
+                if not children:
+                    break
+                continue
+            if hasattr(os, "fork"):
+                # every check runs in a fork that already has GatorGrader
+                # imported, so checks can run at the same time
+                child = os.fork()
+                if child == 0:
+                    server.close()
+                    try:
+                        handle(connection, token, script, code, True)
+                    finally:
+                        os._exit(0)  # pylint: disable=protected-access
+                connection.close()
+                children.add(child)
+                reap(children)
+            else:
+                try:
+                    handle(connection, token, script, code, False)
+                except (OSError, ValueError):
+                    traceback.print_exc()
+    finally:
+        server.close()
+        with contextlib.suppress(OSError, ValueError):
+            with open(state_file) as state_input:
+                if json.load(state_input).get("pid") == os.getpid():
+                    os.remove(state_file)
+
+
+if __name__ == "__main__":
+    SCRIPT, CODE = load(sys.argv[1])
+    if len(sys.argv) > 2 and sys.argv[2] == "--serve":
+        daemon(SCRIPT, CODE, sys.argv[3], int(sys.argv[4]))
+    else:
+        # GatorGradle always writes requests as UTF-8, whatever the locale says
+        serve(SCRIPT, CODE, io.TextIOWrapper(sys.stdin.buffer, encoding="utf-8"), sys.stdout)
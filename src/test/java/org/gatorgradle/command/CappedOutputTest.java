@@ -0,0 +1,49 @@
+package org.gatorgradle.command;
+
+import static org.junit.Assert.assertEquals;
+
+import org.gatorgradle.util.StringUtil;
+import org.junit.Test;
+
+public class CappedOutputTest {
+  private static final String TEXT = "abcdefghijklmnop";
+
+  private static String capped(int limit, int chunk) {
+    CappedOutput output = new CappedOutput(limit);
+    // surround each chunk with characters that must not be read
+    for (int start = 0; start < TEXT.length(); start += chunk) {
+      String part = TEXT.substring(start, Math.min(TEXT.length(), start + chunk));
+      output.append(("#" + part + "#").toCharArray(), 1, part.length());
+    }
+    return output.toString();
+  }
+
+  @Test
+  public void keepsOutputWithinLimit() {
+    assertEquals(TEXT, capped(TEXT.length(), 3));
+    assertEquals(TEXT, capped(100, TEXT.length()));
+  }
+
+  @Test
+  public void keepsHeadAndTailOfOneLargeChunk() {
+    assertEquals("abcde" + StringUtil.omitted(6) + "lmnop", capped(10, TEXT.length()));
+  }
+
+  @Test
+  public void keepsHeadAndTailAcrossChunks() {
+    String expected = "abcde" + StringUtil.omitted(6) + "lmnop";
+    for (int chunk = 1; chunk <= 7; chunk++) {
+      assertEquals(expected, capped(10, chunk));
+    }
+  }
+
+  @Test
+  public void givesTheHeadTheOddCharacter() {
+    assertEquals("abcdef" + StringUtil.omitted(5) + "lmnop", capped(11, 5));
+  }
+
+  @Test
+  public void keepsOnlyHeadOfOneCharacter() {
+    assertEquals("a" + StringUtil.omitted(15), capped(1, 4));
+  }
+}
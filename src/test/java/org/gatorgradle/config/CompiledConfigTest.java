@@ -0,0 +1,139 @@
+package org.gatorgradle.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.Command;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledConfigTest {
+  private static final String CONFIG = String.join("\n",
+      "name: compiled",
+      "break: true",
+      "---",
+      "ConfirmFileExists --file README.md",
+      "src:",
+      "    (timeout 5) mdl");
+
+  private Path dir;
+  private Path config;
+  private Path compiled;
+
+  /**
+   * Write the config into a directory of its own.
+   */
+  @Before
+  public void createFiles() throws IOException {
+    dir = Files.createTempDirectory("gatorgradle");
+    config = dir.resolve("gatorgrader.yml");
+    compiled = dir.resolve("config.bin");
+    Files.write(config, CONFIG.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Delete the directory with everything the test wrote into it.
+   */
+  @After
+  public void deleteFiles() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> walk = Files.walk(dir)) {
+      paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      Files.delete(path);
+    }
+  }
+
+  private CompiledConfig saved() {
+    ConfigMap map = new ConfigMap(config);
+    map.parse();
+    CompiledConfig stored = CompiledConfig.load(compiled, config);
+    stored.save(map);
+    return stored;
+  }
+
+  @Test
+  public void isEmptyBeforeSaving() {
+    CompiledConfig loaded = CompiledConfig.load(compiled, config);
+    assertNull(loaded.getMap());
+    assertNull(loaded.getCommands(""));
+  }
+
+  @Test
+  public void restoresParsedConfig() {
+    saved();
+    ConfigMap map = CompiledConfig.load(compiled, config).getMap();
+    assertNotNull(map);
+    assertEquals("compiled", map.getHeader("name").asString());
+    assertEquals(2, map.getHeader("break").lineNumber());
+    assertEquals("ConfirmFileExists --file README.md", map.getChecks("").get(0).asString());
+    ConfigMap.Value check = map.getChecks("src").get(0);
+    assertEquals("(timeout 5) mdl", check.asString());
+    assertEquals(6, check.lineNumber());
+  }
+
+  @Test
+  public void restoresCommandsForSameOverrides() throws IOException {
+    File src = Files.createDirectory(dir.resolve("src")).toFile();
+    BasicCommand cmd = new BasicCommand("mdl", "README.md").timeout(5000).outputLimit(100);
+    cmd.setWorkingDir(src);
+    saved().saveCommands("overrides", Collections.singletonList(cmd));
+
+    CompiledConfig loaded = CompiledConfig.load(compiled, config);
+    assertNull(loaded.getCommands("other overrides"));
+    List<Command> commands = loaded.getCommands("overrides");
+    assertEquals(1, commands.size());
+    BasicCommand restored = (BasicCommand) commands.get(0);
+    assertEquals(Arrays.asList("mdl", "README.md"), restored.arguments());
+    assertEquals(src, restored.getWorkingDir());
+    assertEquals(5000, restored.getTimeout());
+    assertEquals(100, restored.getOutputLimit());
+  }
+
+  @Test
+  public void dropsCommandsOnceTheirDirectoryIsGone() throws IOException {
+    File src = Files.createDirectory(dir.resolve("src")).toFile();
+    BasicCommand cmd = new BasicCommand("true");
+    cmd.setWorkingDir(src);
+    saved().saveCommands("", Collections.singletonList(cmd));
+    Files.delete(src.toPath());
+
+    CompiledConfig loaded = CompiledConfig.load(compiled, config);
+    assertNotNull(loaded.getMap());
+    assertNull(loaded.getCommands(""));
+  }
+
+  @Test
+  public void isInvalidatedByChangedConfig() throws IOException {
+    saved();
+    Files.write(config, (CONFIG + "\n    htmlhint").getBytes(StandardCharsets.UTF_8));
+    assertNull(CompiledConfig.load(compiled, config).getMap());
+  }
+
+  @Test
+  public void ignoresCorruptFile() throws IOException {
+    saved();
+    byte[] bytes = Files.readAllBytes(compiled);
+    Files.write(compiled, Arrays.copyOf(bytes, bytes.length / 2));
+    assertNull(CompiledConfig.load(compiled, config).getMap());
+
+    Files.write(compiled, "not a compiled config".getBytes(StandardCharsets.UTF_8));
+    assertNull(CompiledConfig.load(compiled, config).getMap());
+  }
+}
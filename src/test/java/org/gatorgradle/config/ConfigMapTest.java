@@ -0,0 +1,135 @@
+package org.gatorgradle.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.gradle.api.GradleException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigMapTest {
+  private Path file;
+
+  @Before
+  public void createFile() throws IOException {
+    file = Files.createTempFile("gatorgrader", ".yml");
+  }
+
+  @After
+  public void deleteFile() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  private ConfigMap parse(String... lines) throws IOException {
+    Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    ConfigMap map = new ConfigMap(file);
+    map.parse();
+    return map;
+  }
+
+  private static List<String> checks(ConfigMap map, String path) {
+    return map.getChecks(path).stream()
+        .map(val -> val.lineNumber() + " " + val.asString())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void parsesHeaderAndNestedPaths() throws IOException {
+    ConfigMap map = parse(
+        "# the assignment",
+        "name: demo",
+        "indent: 2",
+        "---",
+        "ConfirmFileExists --file README.md",
+        "",
+        "src:",
+        "  main:",
+        "    CountFileLines --count 1",
+        "  # checks of src itself",
+        "  ConfirmFileExists --file Main.java",
+        "docs: ConfirmFileExists --file index.md");
+    assertEquals("demo", map.getHeader("name").asString());
+    assertEquals(2, map.getHeader("name").lineNumber());
+    assertEquals(2, map.getHeader("indent").asInteger());
+
+    String main = "src" + File.separator + "main";
+    assertEquals(new HashSet<>(Arrays.asList("", "src", main, "docs")), map.getPaths());
+    assertEquals(Arrays.asList("5 ConfirmFileExists --file README.md"), checks(map, ""));
+    assertEquals(Arrays.asList("9 CountFileLines --count 1"), checks(map, main));
+    assertEquals(Arrays.asList("11 ConfirmFileExists --file Main.java"), checks(map, "src"));
+    assertEquals(Arrays.asList("12 ConfirmFileExists --file index.md"), checks(map, "docs"));
+    assertEquals(4, map.getAllChecks().size());
+  }
+
+  @Test
+  public void leavesPathAfterDedent() throws IOException {
+    ConfigMap map = parse(
+        "name: dedent",
+        "---",
+        "src:",
+        "    first",
+        "second",
+        "    third");
+    assertEquals(Arrays.asList("4 first"), checks(map, "src"));
+    assertEquals(Arrays.asList("5 second", "6 third"), checks(map, ""));
+  }
+
+  @Test
+  public void splitsPathsGivenOnOneLine() throws IOException {
+    ConfigMap map = parse(
+        "name: inline",
+        "---",
+        "a: b: check",
+        "    more");
+    String path = "a" + File.separator + "b";
+    assertEquals(new HashSet<>(Arrays.asList(path)), map.getPaths());
+    assertEquals(Arrays.asList("3 check", "4 more"), checks(map, path));
+  }
+
+  @Test
+  public void endsHeaderAtLastMark() throws IOException {
+    ConfigMap map = parse(
+        "name: marks",
+        "---",
+        "break: true",
+        "-----",
+        "check");
+    assertTrue(map.getHeader("break").asBoolean());
+    assertEquals(Arrays.asList("5 check"), checks(map, ""));
+  }
+
+  @Test
+  public void indentsWithTabs() throws IOException {
+    ConfigMap map = parse(
+        "name: tabs",
+        "indent: tab",
+        "---",
+        "src:",
+        "\tmain:",
+        "\t\tcheck");
+    assertEquals(Arrays.asList("6 check"), checks(map, "src" + File.separator + "main"));
+    assertNull(map.getChecks("src"));
+  }
+
+  @Test(expected = GradleException.class)
+  public void rejectsMisplacedIndent() throws IOException {
+    parse("name: bad", "---", "src:", "  check");
+  }
+
+  @Test(expected = GradleException.class)
+  public void rejectsMissingMark() throws IOException {
+    parse("name: nomark", "check");
+  }
+}
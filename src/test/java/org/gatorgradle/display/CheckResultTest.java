@@ -0,0 +1,54 @@
+package org.gatorgradle.display;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.gatorgradle.display.CheckResult.MalformedJsonException;
+import org.junit.Test;
+
+public class CheckResultTest {
+  private static final String RESULT =
+      "{\"check\": \"Has a README\", \"outcome\": false, \"diagnostic\": \"Found {0} files\"}";
+
+  @Test
+  public void parsesResultAfterNoiseWithBraces() throws MalformedJsonException {
+    String output = "Loading {plugins\nwarning: unmatched '}' in config\n"
+        + "{\"progress\": {\"done\": 1}}\n" + RESULT + "\ntrailing {";
+    CheckResult result = new CheckResult(output);
+    assertEquals("Has a README", result.check);
+    assertFalse(result.outcome);
+    assertEquals("Found {0} files", result.diagnostic);
+  }
+
+  @Test
+  public void skipsObjectsMissingResultFields() throws MalformedJsonException {
+    String output = "{\"check\": \"no outcome\"}\n{\"check\": 1, \"outcome\": true, "
+        + "\"diagnostic\": \"\"}\n" + RESULT;
+    assertEquals("Has a README", new CheckResult(output).check);
+  }
+
+  @Test
+  public void parsesEveryResultAmongNoise() throws MalformedJsonException {
+    String passed = "{\"check\": \"Has tests\", \"outcome\": true, \"diagnostic\": \"\", "
+        + "\"extra\": [1, {\"nested\": \"}\"}]}";
+    List<CheckResult> results =
+        CheckResult.parseAll("{ not json\n[" + RESULT + ",\n" + passed + "]\n}");
+    assertEquals(2, results.size());
+    assertEquals("Has a README", results.get(0).check);
+    assertEquals("Has tests", results.get(1).check);
+    assertTrue(results.get(1).outcome);
+  }
+
+  @Test
+  public void findsNothingInNoise() throws MalformedJsonException {
+    assertTrue(CheckResult.parseAll("Traceback {most recent call last}").isEmpty());
+  }
+
+  @Test(expected = MalformedJsonException.class)
+  public void rejectsOutputWithoutResult() throws MalformedJsonException {
+    new CheckResult("error: {\"outcome\": true}");
+  }
+}
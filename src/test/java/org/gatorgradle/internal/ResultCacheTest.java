@@ -0,0 +1,130 @@
+package org.gatorgradle.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gatorgradle.command.BasicCommand;
+import org.gatorgradle.command.GatorGraderCommand;
+import org.gatorgradle.config.GatorGradleConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheTest {
+  private Path project;
+  private Path entries;
+  private GatorGradleConfig config;
+
+  /**
+   * Create a project with a config and a file for checks to look at.
+   */
+  @Before
+  public void createProject() throws IOException {
+    project = Files.createTempDirectory("gatorgradle");
+    entries = project.resolve("results");
+    Path configFile = project.resolve("gatorgrader.yml");
+    Files.write(configFile, "name: cache\n---\nConfirmFileExists --file README.md\n"
+        .getBytes(StandardCharsets.UTF_8));
+    write("README.md", "# Read me");
+    config = GatorGradleConfig.create(configFile);
+    config.parseHeader(Collections.emptyMap());
+  }
+
+  /**
+   * Delete the project with everything the test wrote into it.
+   */
+  @After
+  public void deleteProject() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> walk = Files.walk(project)) {
+      paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      Files.delete(path);
+    }
+  }
+
+  private void write(String name, String contents) throws IOException {
+    Files.write(project.resolve(name), contents.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private ResultCache cache() {
+    return new ResultCache(entries, project.toFile(), config);
+  }
+
+  private static GatorGraderCommand check(String... arguments) {
+    return new GatorGraderCommand(arguments);
+  }
+
+  @Test
+  public void keysFollowTheCheckedFile() throws IOException {
+    String key = cache().key(check("ConfirmFileExists", "--file", "README.md"));
+    assertNotNull(key);
+    assertEquals(key, cache().key(check("ConfirmFileExists", "--file", "README.md")));
+
+    write("other.md", "unrelated");
+    assertEquals(key, cache().key(check("ConfirmFileExists", "--file", "README.md")));
+
+    write("README.md", "# Changed");
+    assertFalse(key.equals(cache().key(check("ConfirmFileExists", "--file", "README.md"))));
+  }
+
+  @Test
+  public void keysFollowTheArguments() {
+    ResultCache cache = cache();
+    assertFalse(cache.key(check("ConfirmFileExists", "--file", "README.md"))
+        .equals(cache.key(check("CountFileLines", "--file", "README.md", "--count", "1"))));
+  }
+
+  @Test
+  public void neverKeysArbitraryCommands() {
+    ResultCache cache = cache();
+    assertNull(cache.key(check("ExecuteCommandGivesOutput", "--command", "ls")));
+    assertNull(cache.key(new BasicCommand("ls", "README.md")));
+  }
+
+  @Test
+  public void restoresStoredResult() {
+    GatorGraderCommand ran = check("ConfirmFileExists", "--file", "README.md");
+    String key = cache().key(ran);
+    ran.finish(1, "{\"check\": \"README\", \"outcome\": false, \"diagnostic\": \"\"}");
+    cache().store(ran, key);
+
+    GatorGraderCommand restored = check("ConfirmFileExists", "--file", "README.md");
+    assertTrue(cache().restore(restored, key));
+    assertEquals(1, restored.exitValue());
+    assertEquals(ran.getOutput(), restored.getOutput());
+    assertFalse(cache().restore(restored, "missing"));
+  }
+
+  @Test
+  public void prunesEntriesTheRunDidNotUse() {
+    GatorGraderCommand stale = check("ConfirmFileExists", "--file", "README.md");
+    String staleKey = cache().key(stale);
+    stale.finish(0, "stale");
+    cache().store(stale, staleKey);
+
+    ResultCache run = cache();
+    GatorGraderCommand kept = check("ConfirmFileExists", "--file", "other.md");
+    String keptKey = run.key(kept);
+    kept.finish(0, "kept");
+    run.store(kept, keptKey);
+    run.prune();
+
+    assertFalse(Files.exists(entries.resolve(staleKey)));
+    assertTrue(Files.exists(entries.resolve(keptKey)));
+  }
+}
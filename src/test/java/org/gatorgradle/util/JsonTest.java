@@ -0,0 +1,48 @@
+package org.gatorgradle.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class JsonTest {
+  @Test
+  public void readsRequestedFieldsInOrder() {
+    List<Object[]> objects = Json.readObjects(
+        "{\"b\": 2, \"skipped\": {\"nested\": [1, \"}\", {}]}, \"a\": \"x\"}", "a", "b", "c");
+    assertEquals(1, objects.size());
+    assertArrayEquals(new Object[] {"x", 2L, null}, objects.get(0));
+  }
+
+  @Test
+  public void readsEveryObjectAmongNoise() {
+    List<Object[]> objects = Json.readObjects(
+        "Loading {plugins\n{\"a\": true}{\"a\": false} {\"a\": 1 trailing }\n{}", "a");
+    assertEquals(3, objects.size());
+    assertArrayEquals(new Object[] {true}, objects.get(0));
+    assertArrayEquals(new Object[] {false}, objects.get(1));
+    assertArrayEquals(new Object[] {null}, objects.get(2));
+  }
+
+  @Test
+  public void doesNotReadNestedObjectsSeparately() {
+    List<Object[]> objects = Json.readObjects("{\"a\": \"outer\", \"b\": {\"a\": \"inner\"}}", "a");
+    assertEquals(1, objects.size());
+    assertArrayEquals(new Object[] {"outer"}, objects.get(0));
+  }
+
+  @Test
+  public void unescapesStrings() {
+    List<Object[]> objects =
+        Json.readObjects("{\"a\": \"say \\\"hi\\\" }\\n\\u0041\"}", "a");
+    assertArrayEquals(new Object[] {"say \"hi\" }\nA"}, objects.get(0));
+  }
+
+  @Test
+  public void findsNothingWithoutObjects() {
+    assertTrue(Json.readObjects("Traceback {most recent call last}: }{", "a").isEmpty());
+  }
+}